@@ -0,0 +1,10 @@
+package com.mind.map.api;
+
+import com.mind.map.api.domain.MapChange;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface MapChangeRepository extends MongoRepository<MapChange, String> {
+    List<MapChange> findByMapNameAndVersionGreaterThanOrderByVersion(String mapName, long version);
+}
@@ -2,7 +2,24 @@ package com.mind.map.api;
 
 import com.mind.map.api.domain.Map;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
-public interface MapRepository extends MongoRepository<Map, String> {
+import java.util.stream.Stream;
+
+public interface MapRepository extends MongoRepository<Map, String>, MapRepositoryCustom {
     Map findByName(String name);
-}
\ No newline at end of file
+
+    boolean existsByName(String name);
+
+    @Query(value = "{ 'name': ?0 }", fields = "{ '_id': 1 }")
+    Map findIdByName(String name);
+
+    @Query(value = "{ 'name': ?0 }", fields = "{ 'version': 1, 'pendingWrites': 1 }")
+    Map findVersionByName(String name);
+
+    @Query(value = "{}", fields = "{ '_id': 0, 'name': 1 }")
+    Stream<Map> findAllNames();
+
+    @Query(value = "{ 'name': ?0, 'nodes.id': ?1 }", fields = "{ 'name': 1, 'nodes': { '$elemMatch': { 'id': ?1 } } }")
+    Map findByNameAndNodeId(String name, String nodeId);
+}
@@ -0,0 +1,9 @@
+package com.mind.map.api;
+
+import com.mind.map.api.domain.Node;
+
+import java.util.List;
+
+public interface MapRepositoryCustom {
+    boolean pushNodes(String name, List<Node> nodes, long expectedVersion);
+}
@@ -0,0 +1,42 @@
+package com.mind.map.api;
+
+import com.mind.map.api.domain.Map;
+import com.mind.map.api.domain.Node;
+import com.mongodb.client.result.UpdateResult;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+public class MapRepositoryImpl implements MapRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    public MapRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public boolean pushNodes(String name, List<Node> nodes, long expectedVersion) {
+        UpdateResult result = mongoTemplate.updateFirst(pushNodesQuery(name, expectedVersion), pushNodesUpdate(nodes), Map.class);
+        return result.getMatchedCount() > 0;
+    }
+
+    static Query pushNodesQuery(String name, long expectedVersion) {
+        return Query.query(Criteria.where("name").is(name)).addCriteria(versionIs(expectedVersion));
+    }
+
+    // Maps stored before writes were versioned have no version field, and load at version 0
+    public static Criteria versionIs(long expectedVersion) {
+        if (expectedVersion == 0) {
+            return Criteria.where("version").in(0L, null);
+        }
+        return Criteria.where("version").is(expectedVersion);
+    }
+
+    static Update pushNodesUpdate(List<Node> nodes) {
+        return new Update().push("nodes").each(nodes.toArray())
+                .inc("version", 1);
+    }
+}
@@ -0,0 +1,15 @@
+package com.mind.map.api;
+
+import com.mind.map.api.domain.NodeDocument;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface NodeRepository extends MongoRepository<NodeDocument, String> {
+    List<NodeDocument> findByMapIdOrderBySeq(String mapId);
+
+    List<NodeDocument> findByMapIdAndPathIn(String mapId, Collection<String> paths);
+
+    NodeDocument findByMapIdAndId(String mapId, String id);
+}
@@ -0,0 +1,18 @@
+package com.mind.map.api;
+
+import com.mind.map.api.domain.Map;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveMapRepository extends ReactiveMongoRepository<Map, String>, ReactiveMapRepositoryCustom {
+    Mono<Map> findByName(String name);
+
+    Mono<Boolean> existsByName(String name);
+
+    @Query(value = "{ 'name': ?0 }", fields = "{ 'version': 1 }")
+    Mono<Map> findVersionByName(String name);
+
+    @Query(value = "{ 'name': ?0, 'nodes.id': ?1 }", fields = "{ 'name': 1, 'nodes': { '$elemMatch': { 'id': ?1 } } }")
+    Mono<Map> findByNameAndNodeId(String name, String nodeId);
+}
@@ -0,0 +1,10 @@
+package com.mind.map.api;
+
+import com.mind.map.api.domain.Node;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReactiveMapRepositoryCustom {
+    Mono<Boolean> pushNodes(String name, List<Node> nodes, long expectedVersion);
+}
@@ -0,0 +1,22 @@
+package com.mind.map.api;
+
+import com.mind.map.api.domain.Map;
+import com.mind.map.api.domain.Node;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public class ReactiveMapRepositoryImpl implements ReactiveMapRepositoryCustom {
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public ReactiveMapRepositoryImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Mono<Boolean> pushNodes(String name, List<Node> nodes, long expectedVersion) {
+        return mongoTemplate.updateFirst(MapRepositoryImpl.pushNodesQuery(name, expectedVersion), MapRepositoryImpl.pushNodesUpdate(nodes), Map.class)
+                .map(result -> result.getMatchedCount() > 0);
+    }
+}
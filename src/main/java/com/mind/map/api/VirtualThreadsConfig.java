@@ -0,0 +1,62 @@
+package com.mind.map.api;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+@Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "mindmap.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadsConfig implements WebMvcConfigurer {
+
+    // Not exposed as an Executor bean, which would make Boot back off from its applicationTaskExecutor
+    @Bean(destroyMethod = "shutdown")
+    public VirtualThreadExecutor virtualThreadExecutor() {
+        log.info("Handling requests on virtual threads");
+        return new VirtualThreadExecutor(newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = virtualThreadExecutor().executor;
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor().executor));
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException(String.format("mindmap.virtual-threads.enabled needs Java 21 or later, running on Java %s", System.getProperty("java.version")), ex);
+        } catch (IllegalAccessException | InvocationTargetException ex) {
+            throw new IllegalStateException("Unable to create the virtual thread executor", ex);
+        }
+    }
+
+    public static class VirtualThreadExecutor {
+        private final ExecutorService executor;
+
+        VirtualThreadExecutor(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        public void shutdown() {
+            executor.shutdown();
+        }
+    }
+}
@@ -1,31 +1,52 @@
 package com.mind.map.api.controllers;
 
 import com.mind.map.api.domain.AddLeafResponse;
+import com.mind.map.api.domain.AddLeavesResponse;
 import com.mind.map.api.domain.Leaf;
 import com.mind.map.api.domain.CreateMapRequest;
 import com.mind.map.api.domain.Map;
+import com.mind.map.api.domain.MapChangesResponse;
 import com.mind.map.api.domain.ReadMapResponse;
+import com.mind.map.api.exceptions.NotFoundException;
 import com.mind.map.api.services.MapService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 @RestController
 @RequestMapping("/map")
 @Validated
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class MapController {
+    private static final MediaType PRETTY_CONTENT_TYPE = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
     private final MapService service;
+    private final boolean streaming;
 
-    public MapController(MapService service) {
+    public MapController(MapService service, @Value("${mindmap.read.streaming:false}") boolean streaming) {
         this.service = service;
+        this.streaming = streaming;
     }
 
     @PostMapping
@@ -34,13 +55,45 @@ public class MapController {
     }
 
     @GetMapping("/{map}")
-    public ResponseEntity<ReadMapResponse> getMap(@PathVariable final String map) {
-        return ResponseEntity.ok().body(service.getMap(map));
+    public ResponseEntity<?> getMap(@PathVariable final String map, final WebRequest request) {
+        long version = service.getVersion(map);
+        String eTag = eTag(version);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        if (streaming) {
+            return ResponseEntity.ok().eTag(eTag).contentType(MediaType.APPLICATION_JSON).body(service.streamMap(map, version));
+        }
+        return ResponseEntity.ok().eTag(eTag).body(service.getMap(map, version));
+    }
+
+    @GetMapping("/{map}/subtree")
+    public ResponseEntity<ReadMapResponse> getSubtree(@PathVariable final String map,
+                                                      @RequestParam(defaultValue = "") final String path,
+                                                      @RequestParam(required = false) @Min(0) final Integer depth,
+                                                      final WebRequest request) {
+        long version = service.getVersion(map);
+        String eTag = eTag(version);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(service.getSubtree(map, path, (depth == null) ? Integer.MAX_VALUE : depth, version));
     }
 
     @GetMapping("/{map}/pretty")
-    public ResponseEntity<String> printMap(@PathVariable final String map) {
-        return ResponseEntity.ok().body(service.printMap(map));
+    public ResponseEntity<StreamingResponseBody> printMap(@PathVariable final String map,
+                                                          @RequestParam(defaultValue = "") final String path,
+                                                          @RequestParam(required = false) @Min(0) final Integer depth,
+                                                          final WebRequest request) {
+        long version = service.getVersion(map);
+        String eTag = eTag(version);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .contentType(PRETTY_CONTENT_TYPE)
+                .body(service.printMap(map, path, (depth == null) ? Integer.MAX_VALUE : depth, version));
     }
 
     @PostMapping("/{map}/leaf")
@@ -48,9 +101,34 @@ public class MapController {
         return ResponseEntity.ok().body(service.addLeaf(map, request));
     }
 
+    @PostMapping(value = "/{map}/leaves", consumes = {MediaType.APPLICATION_JSON_VALUE, NdjsonHttpMessageConverter.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<AddLeavesResponse> addLeaves(@PathVariable final String map, @NotEmpty @RequestBody final List<@Valid Leaf> request) {
+        return ResponseEntity.ok().body(service.addLeaves(map, request));
+    }
+
+    @GetMapping("/{map}/changes")
+    public ResponseEntity<MapChangesResponse> getChanges(@PathVariable final String map, @RequestParam @Min(0) final long since) {
+        return ResponseEntity.ok().body(service.getChanges(map, since));
+    }
+
+    @GetMapping(value = "/{map}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> getEvents(@PathVariable final String map,
+                                                @RequestHeader(value = LAST_EVENT_ID, required = false) @Min(0) final Long lastEventId,
+                                                @RequestParam(required = false) @Min(0) final Long since) {
+        try {
+            return ResponseEntity.ok().body(service.subscribe(map, (lastEventId != null) ? lastEventId : since));
+        } catch (NotFoundException ex) {
+            // EventSource clients only accept text/event-stream, which the JSON ApiError body can't be written as
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @GetMapping("/{map}/leaf/{leafId}")
     public ResponseEntity<Leaf> readLeaf(@PathVariable final String map, @PathVariable final String leafId) {
         return ResponseEntity.ok().body(service.readLeaf(map, leafId));
     }
 
+    private String eTag(long version) {
+        return "\"" + version + "\"";
+    }
 }
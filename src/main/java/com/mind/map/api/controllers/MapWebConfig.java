@@ -0,0 +1,66 @@
+package com.mind.map.api.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mind.map.api.services.MapMetrics;
+import com.mind.map.api.services.RequestTiming;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class MapWebConfig implements WebMvcConfigurer {
+    private final ObjectMapper mapper;
+    private final MapMetrics metrics;
+    private final boolean requestTiming;
+
+    public MapWebConfig(ObjectMapper mapper, MapMetrics metrics, @Value("${mindmap.server-timing.enabled:false}") boolean requestTiming) {
+        this.mapper = mapper;
+        this.metrics = metrics;
+        this.requestTiming = requestTiming;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new StreamingResponseBodyConverter());
+        converters.add(new NdjsonHttpMessageConverter(mapper));
+        converters.replaceAll(converter -> (converter.getClass() == MappingJackson2HttpMessageConverter.class)
+                ? new TimedJsonHttpMessageConverter(((MappingJackson2HttpMessageConverter) converter).getObjectMapper(), metrics)
+                : converter);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        if (requestTiming) {
+            configurer.registerCallableInterceptors(new RequestTimingInterceptor());
+        }
+    }
+
+    static class RequestTimingInterceptor implements CallableProcessingInterceptor {
+        @Override
+        public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+            RequestTiming timing = (RequestTiming) request.getAttribute(RequestTiming.ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (timing != null) {
+                timing.attach();
+            }
+        }
+
+        @Override
+        public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+            RequestTiming timing = RequestTiming.current();
+            if (timing != null) {
+                timing.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.mind.map.api.controllers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+public class NdjsonHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<?>> {
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private final ObjectMapper mapper;
+
+    public NdjsonHttpMessageConverter(ObjectMapper mapper) {
+        super(MediaType.valueOf(APPLICATION_NDJSON_VALUE));
+        this.mapper = mapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        Class<?> clazz = ResolvableType.forType(GenericTypeResolver.resolveType(type, contextClass)).resolve();
+        return clazz != null && supports(clazz) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public List<?> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        JavaType listType = mapper.getTypeFactory().constructType(GenericTypeResolver.resolveType(type, contextClass));
+        try (MappingIterator<Object> values = mapper.readerFor(listType.getContentType()).readValues(inputMessage.getBody())) {
+            return values.readAll();
+        } catch (JsonProcessingException ex) {
+            throw new HttpMessageNotReadableException("Invalid NDJSON line: " + ex.getOriginalMessage(), ex, inputMessage);
+        }
+    }
+
+    @Override
+    protected List<?> readInternal(Class<? extends List<?>> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(List<?> values, Type type, HttpOutputMessage outputMessage) {
+        throw new HttpMessageNotWritableException("NDJSON can only be read");
+    }
+}
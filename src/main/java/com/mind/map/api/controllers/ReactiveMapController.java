@@ -0,0 +1,118 @@
+package com.mind.map.api.controllers;
+
+import com.mind.map.api.domain.AddLeafResponse;
+import com.mind.map.api.domain.AddLeavesResponse;
+import com.mind.map.api.domain.CreateMapRequest;
+import com.mind.map.api.domain.Leaf;
+import com.mind.map.api.domain.Map;
+import com.mind.map.api.domain.ReadMapResponse;
+import com.mind.map.api.services.ReactiveMapService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/map")
+@Validated
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveMapController {
+    private static final MediaType PRETTY_CONTENT_TYPE = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+    private final ReactiveMapService service;
+
+    public ReactiveMapController(ReactiveMapService service) {
+        this.service = service;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<Map>> createMap(@Valid @NotNull @RequestBody final CreateMapRequest request) {
+        return service.createMap(request).map(map -> ResponseEntity.ok().body(map));
+    }
+
+    @GetMapping("/{map}")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getMap(@PathVariable final String map, final ServerWebExchange exchange) {
+        return service.getVersion(map).flatMap(version -> {
+            String eTag = eTag(version);
+            if (exchange.checkNotModified(eTag)) {
+                return Mono.empty();
+            }
+            return Mono.just(ResponseEntity.ok()
+                    .eTag(eTag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(service.streamMap(map, version)));
+        });
+    }
+
+    @GetMapping("/{map}/subtree")
+    public Mono<ResponseEntity<ReadMapResponse>> getSubtree(@PathVariable final String map,
+                                                            @RequestParam(defaultValue = "") final String path,
+                                                            @RequestParam(required = false) @Min(0) final Integer depth,
+                                                            final ServerWebExchange exchange) {
+        return service.getVersion(map).flatMap(version -> {
+            String eTag = eTag(version);
+            if (exchange.checkNotModified(eTag)) {
+                return Mono.empty();
+            }
+            return service.getSubtree(map, path, (depth == null) ? Integer.MAX_VALUE : depth, version)
+                    .map(subtree -> ResponseEntity.ok().eTag(eTag).body(subtree));
+        });
+    }
+
+    @GetMapping("/{map}/pretty")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> printMap(@PathVariable final String map,
+                                                           @RequestParam(defaultValue = "") final String path,
+                                                           @RequestParam(required = false) @Min(0) final Integer depth,
+                                                           final ServerWebExchange exchange) {
+        return service.getVersion(map).flatMap(version -> {
+            String eTag = eTag(version);
+            if (exchange.checkNotModified(eTag)) {
+                return Mono.empty();
+            }
+            return Mono.just(ResponseEntity.ok()
+                    .eTag(eTag)
+                    .contentType(PRETTY_CONTENT_TYPE)
+                    .body(service.printMap(map, path, (depth == null) ? Integer.MAX_VALUE : depth, version)));
+        });
+    }
+
+    @PostMapping("/{map}/leaf")
+    public Mono<ResponseEntity<AddLeafResponse>> addLeaf(@PathVariable final String map, @Valid @NotNull @RequestBody final Leaf request) {
+        return service.addLeaf(map, request).map(response -> ResponseEntity.ok().body(response));
+    }
+
+    @PostMapping(value = "/{map}/leaves", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<AddLeavesResponse>> addLeaves(@PathVariable final String map, @Valid @RequestBody final Flux<Leaf> request) {
+        return request.collectList()
+                .filter(leaves -> !leaves.isEmpty())
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException("At least one leaf is required")))
+                .flatMap(leaves -> service.addLeaves(map, leaves))
+                .map(response -> ResponseEntity.ok().body(response));
+    }
+
+    @GetMapping("/{map}/leaf/{leafId}")
+    public Mono<ResponseEntity<Leaf>> readLeaf(@PathVariable final String map, @PathVariable final String leafId) {
+        return service.readLeaf(map, leafId).map(leaf -> ResponseEntity.ok().body(leaf));
+    }
+
+    private String eTag(long version) {
+        return "\"" + version + "\"";
+    }
+}
@@ -0,0 +1,109 @@
+package com.mind.map.api.controllers;
+
+import com.mind.map.api.services.RequestTiming;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+
+@Component
+@Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "mindmap.server-timing.enabled", havingValue = "true")
+public class ServerTimingFilter extends OncePerRequestFilter {
+    static final String SERVER_TIMING = "Server-Timing";
+
+    private final long slowNanos;
+
+    public ServerTimingFilter(@Value("${mindmap.server-timing.slow-threshold:500ms}") Duration slowThreshold) {
+        this.slowNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.start();
+        request.setAttribute(RequestTiming.ATTRIBUTE, timing);
+        TimingResponse timingResponse = new TimingResponse(response, timing);
+        try {
+            chain.doFilter(request, timingResponse);
+        } finally {
+            timing.end();
+            if (!response.isCommitted()) {
+                timingResponse.addServerTiming();
+            }
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        logIfSlow(request, response, timing);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                logIfSlow(request, response, timing);
+            }
+        }
+    }
+
+    private void logIfSlow(HttpServletRequest request, HttpServletResponse response, RequestTiming timing) {
+        String contentType = response.getContentType();
+        if (timing.elapsed() >= slowNanos && (contentType == null || !contentType.startsWith(MediaType.TEXT_EVENT_STREAM_VALUE))) {
+            log.warn("Slow request method={} uri={} status={} {}", request.getMethod(), request.getRequestURI(), response.getStatus(), timing.summary());
+        }
+    }
+
+    private static class TimingResponse extends HttpServletResponseWrapper {
+        private final RequestTiming timing;
+        private boolean timed;
+
+        TimingResponse(HttpServletResponse response, RequestTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addServerTiming();
+            return super.getWriter();
+        }
+
+        void addServerTiming() {
+            if (!timed && !isCommitted()) {
+                timed = true;
+                addHeader(SERVER_TIMING, timing.header());
+            }
+        }
+    }
+}
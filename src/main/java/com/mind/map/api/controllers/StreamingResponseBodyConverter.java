@@ -0,0 +1,37 @@
+package com.mind.map.api.controllers;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+
+public class StreamingResponseBodyConverter extends AbstractHttpMessageConverter<StreamingResponseBody> {
+
+    public StreamingResponseBodyConverter() {
+        super(MediaType.APPLICATION_JSON, MediaType.TEXT_PLAIN, MediaType.ALL);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return StreamingResponseBody.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected StreamingResponseBody readInternal(Class<? extends StreamingResponseBody> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("StreamingResponseBody can only be written", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(StreamingResponseBody body, HttpOutputMessage outputMessage) throws IOException {
+        body.writeTo(outputMessage.getBody());
+    }
+}
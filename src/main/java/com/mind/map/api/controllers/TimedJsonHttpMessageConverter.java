@@ -0,0 +1,45 @@
+package com.mind.map.api.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mind.map.api.services.MapMetrics;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+public class TimedJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+    static final String OTHER_ENDPOINT = "other";
+
+    private final MapMetrics metrics;
+
+    public TimedJsonHttpMessageConverter(ObjectMapper mapper, MapMetrics metrics) {
+        super(mapper);
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException, HttpMessageNotWritableException {
+        long start = metrics.start();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            metrics.stop(start, MapMetrics.SERIALIZE, endpoint());
+        }
+    }
+
+    // Map endpoints are tagged with their controller method, like the stages recorded by MapService
+    private static String endpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object handler = (attributes == null) ? null : attributes.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (handler instanceof HandlerMethod && ((HandlerMethod) handler).getBeanType() == MapController.class) {
+            return ((HandlerMethod) handler).getMethod().getName();
+        }
+        return OTHER_ENDPOINT;
+    }
+}
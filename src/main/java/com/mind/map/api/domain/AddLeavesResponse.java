@@ -0,0 +1,12 @@
+package com.mind.map.api.domain;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class AddLeavesResponse {
+    private List<String> ids;
+}
@@ -4,16 +4,20 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import org.hibernate.validator.constraints.UniqueElements;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 import javax.validation.constraints.NotBlank;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 @Data
 @Document(collection = "mind_map")
+@CompoundIndex(name = "name_nodes_id", def = "{'name': 1, 'nodes.id': 1}")
 public class Map {
     @Id
     @JsonIgnore
@@ -25,4 +29,14 @@ public class Map {
     private String name;
 
     private List<Node> nodes = new ArrayList<>();
+
+    @JsonIgnore
+    private long nodeSeq;
+
+    @JsonIgnore
+    private java.util.Map<String, Date> pendingWrites;
+
+    @Version
+    @JsonIgnore
+    private long version;
 }
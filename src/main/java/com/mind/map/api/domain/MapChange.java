@@ -0,0 +1,23 @@
+package com.mind.map.api.domain;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.List;
+
+@Data
+@Builder
+@Document(collection = "mind_map_change")
+@CompoundIndex(name = "mapName_version", def = "{'mapName': 1, 'version': 1}", unique = true)
+public class MapChange {
+    @Id
+    private String id;
+    private String mapName;
+    private long version;
+    private List<Node> nodes;
+    private Date createdAt;
+}
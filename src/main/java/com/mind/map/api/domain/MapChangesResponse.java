@@ -0,0 +1,14 @@
+package com.mind.map.api.domain;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class MapChangesResponse {
+    private long version;
+    private boolean resync;
+    private List<Node> nodes;
+}
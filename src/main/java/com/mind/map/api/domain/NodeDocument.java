@@ -0,0 +1,64 @@
+package com.mind.map.api.domain;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Data
+@Builder
+@Document(collection = "mind_map_node")
+@CompoundIndexes({
+        @CompoundIndex(name = "mapId_path", def = "{'mapId': 1, 'path': 1}", unique = true),
+        @CompoundIndex(name = "mapId_parentPath", def = "{'mapId': 1, 'parentPath': 1, 'seq': 1}"),
+        @CompoundIndex(name = "mapId_id", def = "{'mapId': 1, '_id': 1}"),
+        @CompoundIndex(name = "mapId_seq", def = "{'mapId': 1, 'seq': 1}")
+})
+public class NodeDocument {
+    @Id
+    private String id;
+    private String mapId;
+    private String parentPath;
+    private String name;
+    private String path;
+    private String text;
+    private Integer depth;
+    private long seq;
+
+    public static NodeDocument of(String mapId, Node node, long seq) {
+        return NodeDocument.builder()
+                .id(node.getId())
+                .mapId(mapId)
+                .parentPath(node.getParentPath())
+                .name(node.getName())
+                .path(node.getPath())
+                .text(node.getText())
+                .depth(depthOf(node.getPath()))
+                .seq(seq)
+                .build();
+    }
+
+    public static int depthOf(String path) {
+        if (path.isEmpty()) {
+            return 0;
+        }
+        int depth = 1;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                depth += 1;
+            }
+        }
+        return depth;
+    }
+
+    public Node toNode() {
+        return Node.builder()
+                .id(id)
+                .parentPath(parentPath)
+                .name(name)
+                .text(text)
+                .build();
+    }
+}
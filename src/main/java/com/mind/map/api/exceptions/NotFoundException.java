@@ -4,4 +4,8 @@ public class NotFoundException extends RuntimeException {
     public NotFoundException(String msg) {
         super(msg);
     } 
-}
\ No newline at end of file
+
+    public NotFoundException(String msg, boolean writableStackTrace) {
+        super(msg, null, false, writableStackTrace);
+    }
+}
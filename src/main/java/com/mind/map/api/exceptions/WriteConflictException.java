@@ -0,0 +1,7 @@
+package com.mind.map.api.exceptions;
+
+public class WriteConflictException extends RuntimeException {
+    public WriteConflictException(String msg) {
+        super(msg);
+    }
+}
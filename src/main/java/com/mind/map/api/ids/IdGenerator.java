@@ -0,0 +1,5 @@
+package com.mind.map.api.ids;
+
+public interface IdGenerator {
+    String nextId();
+}
@@ -0,0 +1,15 @@
+package com.mind.map.api.ids;
+
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "mindmap.id-generator", havingValue = "object-id", matchIfMissing = true)
+public class ObjectIdGenerator implements IdGenerator {
+
+    @Override
+    public String nextId() {
+        return new ObjectId().toHexString();
+    }
+}
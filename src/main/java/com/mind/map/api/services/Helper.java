@@ -1,81 +1,217 @@
 package com.mind.map.api.services;
 
-import com.mind.map.api.domain.Node;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.mind.map.api.domain.Leaf;
 import com.mind.map.api.domain.NodeResponse;
+import com.mind.map.api.domain.ReadMapResponse;
+import com.mind.map.api.exceptions.NotFoundException;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
-import java.util.List;
-import java.util.TreeMap;
+import java.util.Arrays;
+import java.util.Collections;
 
 @Component
 public class Helper {
-    public void printChildNodes(StringBuilder pretty, List<NodeResponse> nodeResponses, int tab) {
-        tab += 1;
-        for(NodeResponse node: nodeResponses) {
-            for(int i=0; i<tab; i++) {
-                pretty.append("\t");
+    private static final char[] TABS = "\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t".toCharArray();
+
+    public void printNodes(Writer writer, NodeTree tree, String rootPath, int depth) throws IOException {
+        writer.write(rootPath.isEmpty() ? "root" : rootPath);
+        writer.write("/\n");
+        int[] pending = new int[16];
+        int level = 0;
+        pending[0] = (depth > 0) ? tree.firstChild(tree.find(rootPath)) : NodeTree.NONE;
+        while (level >= 0) {
+            int node = pending[level];
+            if (node == NodeTree.NONE) {
+                level--;
+                if (level >= 0) {
+                    pending[level] = tree.nextSibling(pending[level]);
+                }
+                continue;
             }
-            pretty.append(node.getName());
-            pretty.append("/");
-            pretty.append("\n");
-            List<NodeResponse> child = node.getNodes();
-            if(!child.isEmpty()) {
-                printChildNodes(pretty, node.getNodes(), tab);
+            int tab = level + 1;
+            writeTabs(writer, tab);
+            writer.write(tree.names(), tree.nameOffset(node), tree.nameLength(node));
+            writer.write("/\n");
+            int child = (tab < depth) ? tree.firstChild(node) : NodeTree.NONE;
+            if (child == NodeTree.NONE) {
+                pending[level] = tree.nextSibling(node);
+            } else {
+                pending = grow(pending, ++level);
+                pending[level] = child;
             }
         }
     }
 
-    public void addChildNodes(NodeResponse nodeResponse, List<Node> mapNodes, String rootPath) {
-        java.util.Map<String, NodeResponse> nodeResponseMap = new TreeMap<>();
+    private void writeTabs(Writer writer, int tab) throws IOException {
+        for (; tab > TABS.length; tab -= TABS.length) {
+            writer.write(TABS, 0, TABS.length);
+        }
+        writer.write(TABS, 0, tab);
+    }
+
+    public void addChildNodes(NodeResponse nodeResponse, NodeTree tree, String rootPath) {
+        addChildNodes(nodeResponse, tree, rootPath, Integer.MAX_VALUE);
+    }
+
+    public void addChildNodes(NodeResponse nodeResponse, NodeTree tree, String rootPath, int depth) {
         nodeResponse.setPath(rootPath);
-        for(Node node: mapNodes) {
-            if(node.getParentPath().equals(rootPath)) {
-                NodeResponse currentNodeResponse = nodeToNodeResponse(node);
-                nodeResponse.getNodes().add(currentNodeResponse);
-                nodeResponseMap.put(node.getPath(), currentNodeResponse);
+        NodeResponse[] parents = new NodeResponse[16];
+        int[] pending = new int[16];
+        int level = 0;
+        parents[0] = nodeResponse;
+        pending[0] = (depth > 0) ? tree.firstChild(tree.find(rootPath)) : NodeTree.NONE;
+        while (level >= 0) {
+            int node = pending[level];
+            if (node == NodeTree.NONE) {
+                level--;
+                if (level >= 0) {
+                    pending[level] = tree.nextSibling(pending[level]);
+                }
+                continue;
+            }
+            String parentPath = parents[level].getPath();
+            String name = tree.name(node);
+            NodeResponse currentNodeResponse = NodeResponse.builder()
+                    .path(parentPath.isEmpty() ? name : parentPath + "/" + name)
+                    .text(tree.text(node))
+                    .name(name)
+                    .nodes(new ArrayList<>())
+                    .build();
+            parents[level].getNodes().add(currentNodeResponse);
+            int child = (level + 1 < depth) ? tree.firstChild(node) : NodeTree.NONE;
+            if (child == NodeTree.NONE) {
+                pending[level] = tree.nextSibling(node);
+            } else {
+                pending = grow(pending, ++level);
+                parents = grow(parents, level);
+                parents[level] = currentNodeResponse;
+                pending[level] = child;
             }
         }
-
-        nodeResponseMap.forEach((path, currentNodeResponse) -> addChildNodes(currentNodeResponse, mapNodes, path));
     }
 
-    public NodeResponse nodeToNodeResponse(Node node) {
-        return NodeResponse.builder()
-                .path(node.getPath())
-                .text(node.getText())
-                .name(node.getName())
-                .nodes(new ArrayList<>())
+    public ReadMapResponse readSubtree(String mapName, NodeTree tree, String rootPath, int depth) {
+        NodeResponse nodeResponse;
+        if (rootPath.isEmpty()) {
+            nodeResponse = NodeResponse.builder()
+                    .nodes(new ArrayList<>())
+                    .name(mapName)
+                    .build();
+        } else {
+            int node = tree.find(rootPath);
+            if (node == NodeTree.NONE) {
+                throw new NotFoundException(String.format("Unable to find a node with path=%s in the map with name=%s", rootPath, mapName));
+            }
+            nodeResponse = NodeResponse.builder()
+                    .path(rootPath)
+                    .text(tree.text(node))
+                    .name(tree.name(node))
+                    .nodes(new ArrayList<>())
+                    .build();
+        }
+        addChildNodes(nodeResponse, tree, rootPath, depth);
+
+        return ReadMapResponse.builder()
+                .nodes(Collections.singletonList(nodeResponse))
                 .build();
     }
 
-    public void createIfNotExistNode(List<Node> nodes,
-                                      String parentPath,
-                                      String path,
-                                      String id,
-                                      String text) {
-        String pPath = buildParentPath(parentPath);
-        Node currentNode = Node.builder()
-                .name(path)
-                .id(id)
-                .parentPath(pPath)
-                .text(text)
+    public Leaf readLeaf(NodeTree tree, String leafId) {
+        int node = tree.findById(leafId);
+        if (node == NodeTree.NONE) {
+            return null;
+        }
+        return Leaf.builder()
+                .path(tree.path(node))
+                .text(tree.text(node))
                 .build();
-        boolean nodeExist = nodeExist(nodes, currentNode);
-        if(!nodeExist) {
-            nodes.add(currentNode);
+    }
+
+    public void writeMap(JsonGenerator generator, String mapName, NodeTree tree) throws IOException {
+        String rootPath = "";
+        generator.writeStartObject();
+        generator.writeFieldName("nodes");
+        generator.writeStartArray();
+        generator.writeStartObject();
+        generator.writeStringField("path", rootPath);
+        generator.writeStringField("name", mapName);
+        generator.writeNullField("text");
+        generator.writeFieldName("nodes");
+        generator.writeStartArray();
+        writeChildNodes(generator, tree, rootPath);
+        generator.writeEndObject();
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    public void writeChildNodes(JsonGenerator generator, NodeTree tree, String rootPath) throws IOException {
+        char[] path = rootPath.toCharArray();
+        int[] pathLengths = new int[16];
+        int[] pending = new int[16];
+        int level = 0;
+        pathLengths[0] = path.length;
+        pending[0] = tree.firstChild(tree.find(rootPath));
+        while (level >= 0) {
+            int node = pending[level];
+            if (node == NodeTree.NONE) {
+                generator.writeEndArray();
+                level--;
+                if (level >= 0) {
+                    generator.writeEndObject();
+                    pending[level] = tree.nextSibling(pending[level]);
+                }
+                continue;
+            }
+            int pathLength = pathLengths[level];
+            if (pathLength + tree.nameLength(node) + 1 > path.length) {
+                path = Arrays.copyOf(path, Math.max(path.length * 2, pathLength + tree.nameLength(node) + 1));
+            }
+            if (pathLength > 0) {
+                path[pathLength++] = '/';
+            }
+            System.arraycopy(tree.names(), tree.nameOffset(node), path, pathLength, tree.nameLength(node));
+            pathLength += tree.nameLength(node);
+
+            generator.writeStartObject();
+            generator.writeFieldName("path");
+            generator.writeString(path, 0, pathLength);
+            generator.writeFieldName("name");
+            generator.writeString(tree.names(), tree.nameOffset(node), tree.nameLength(node));
+            generator.writeStringField("text", tree.text(node));
+            generator.writeFieldName("nodes");
+            generator.writeStartArray();
+            pending = grow(pending, ++level);
+            pathLengths = grow(pathLengths, level);
+            pathLengths[level] = pathLength;
+            pending[level] = tree.firstChild(node);
         }
     }
 
-    private String buildParentPath(String parentPath) {
-        return (parentPath.lastIndexOf("/") <= 0) ? "" : parentPath.substring(1, parentPath.lastIndexOf("/"));
+    private static int[] grow(int[] stack, int level) {
+        return (level < stack.length) ? stack : Arrays.copyOf(stack, stack.length * 2);
     }
 
-    public boolean isLeafNode(int pathsLength, int pointer) {
-        return pointer == pathsLength;
+    private static <T> T[] grow(T[] stack, int level) {
+        return (level < stack.length) ? stack : Arrays.copyOf(stack, stack.length * 2);
     }
 
-    public boolean nodeExist(List<Node> mapNodes, Node node) {
-        return mapNodes.contains(node);
+    public String trimSlashes(String path) {
+        int start = 0;
+        int end = path.length();
+        while (start < end && path.charAt(start) == '/') {
+            start++;
+        }
+        while (end > start && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        return path.substring(start, end);
+    }
+
+    public boolean isLeafNode(int pathsLength, int pointer) {
+        return pointer == pathsLength;
     }
 }
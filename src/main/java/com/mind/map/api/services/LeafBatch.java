@@ -0,0 +1,88 @@
+package com.mind.map.api.services;
+
+import com.mind.map.api.domain.Leaf;
+import com.mind.map.api.domain.Node;
+import com.mind.map.api.ids.IdGenerator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+public class LeafBatch {
+    static final int WRITE_SIZE = 1000;
+
+    private final Helper helper;
+    private final IdGenerator idGenerator;
+    private final List<Leaf> leaves;
+    private final List<String[]> leafNames;
+    private final List<String[]> leafPaths;
+    private final Set<String> nodePaths = new LinkedHashSet<>();
+
+    public LeafBatch(Helper helper, IdGenerator idGenerator, List<Leaf> leaves) {
+        this.helper = helper;
+        this.idGenerator = idGenerator;
+        this.leaves = leaves;
+        this.leafNames = new ArrayList<>(leaves.size());
+        this.leafPaths = new ArrayList<>(leaves.size());
+        for (Leaf leaf : leaves) {
+            String[] names = (leaf.getPath() == null) ? new String[0] : leaf.getPath().split("/");
+            String[] paths = new String[names.length];
+            StringBuilder nodePath = new StringBuilder();
+            for (int i = 0; i < names.length; i++) {
+                if (i > 0) {
+                    nodePath.append("/");
+                }
+                nodePath.append(names[i]);
+                paths[i] = nodePath.toString();
+                nodePaths.add(paths[i]);
+            }
+            leafNames.add(names);
+            leafPaths.add(paths);
+        }
+    }
+
+    Set<String> nodePaths() {
+        return nodePaths;
+    }
+
+    int size() {
+        return leaves.size();
+    }
+
+    public List<String> addTo(NodeIndex index, List<Node> newNodes) {
+        List<String> ids = new ArrayList<>(leaves.size());
+        for (int i = 0; i < leaves.size(); i++) {
+            ids.add(addLeaf(index, leafNames.get(i), leafPaths.get(i), leaves.get(i).getText(), newNodes));
+        }
+        return ids;
+    }
+
+    private String addLeaf(NodeIndex index, String[] names, String[] paths, String leafText, List<Node> newNodes) {
+        String leafId = null;
+        for (int i = 0; i < names.length; i++) {
+            String parentPath = (i == 0) ? "" : paths[i - 1];
+            Node node = index.get(parentPath, names[i]);
+            if (node == null) {
+                node = Node.builder()
+                        .id(idGenerator.nextId())
+                        .name(names[i])
+                        .parentPath(parentPath)
+                        .text(helper.isLeafNode(names.length, i + 1) ? leafText : null)
+                        .build();
+                index.addIfAbsent(node);
+                newNodes.add(node);
+            }
+            leafId = node.getId();
+        }
+        return leafId;
+    }
+
+    static List<List<Node>> writeBatches(List<Node> nodes) {
+        List<List<Node>> batches = new ArrayList<>();
+        for (int from = 0; from < nodes.size(); from += WRITE_SIZE) {
+            batches.add(nodes.subList(from, Math.min(nodes.size(), from + WRITE_SIZE)));
+        }
+        return batches;
+    }
+}
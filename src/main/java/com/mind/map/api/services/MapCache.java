@@ -0,0 +1,86 @@
+package com.mind.map.api.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mind.map.api.domain.Node;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+@Component
+public class MapCache {
+    private static final String CACHE_NAME = "mindmap.trees";
+
+    private final boolean enabled;
+    private final Cache<String, NodeTree> trees;
+
+    public MapCache(@Value("${mindmap.cache.enabled:true}") boolean enabled,
+                    @Value("${mindmap.cache.max-bytes:67108864}") long maxBytes,
+                    @Value("${mindmap.cache.expire-after-write:PT30S}") Duration expireAfterWrite,
+                    MeterRegistry registry) {
+        this.enabled = enabled;
+        this.trees = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String name, NodeTree tree) -> (int) Math.min(Integer.MAX_VALUE, tree.estimatedBytes()))
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, trees, CACHE_NAME);
+        Gauge.builder("cache.weighted.size", trees, cache -> cache.policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0L))
+                        .orElse(0L))
+                .tag("cache", CACHE_NAME)
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    public NodeTree get(String mapName, long minVersion, Function<String, NodeTree> loader) {
+        if (!enabled) {
+            return loader.apply(mapName);
+        }
+        NodeTree tree = getIfPresent(mapName, minVersion);
+        if (tree != null) {
+            return tree;
+        }
+        // Concurrent misses of the same map wait for a single load instead of each fetching the map
+        return trees.asMap().compute(mapName, (name, cached) -> {
+            if (cached != null && cached.version() >= minVersion) {
+                return cached;
+            }
+            NodeTree loaded = loader.apply(name);
+            return (loaded == null || cached == null || loaded.version() >= cached.version()) ? loaded : cached;
+        });
+    }
+
+    public NodeTree put(String mapName, NodeTree tree) {
+        if (enabled) {
+            trees.asMap().merge(mapName, tree, (cached, loaded) -> (loaded.version() >= cached.version()) ? loaded : cached);
+        }
+        return tree;
+    }
+
+    public void patch(String mapName, long version, List<Node> nodes, long newVersion) {
+        if (enabled) {
+            trees.asMap().computeIfPresent(mapName, (name, tree) -> (tree.version() == version) ? tree.withNodes(nodes, newVersion) : null);
+        }
+    }
+
+    public NodeTree getIfPresent(String mapName) {
+        return getIfPresent(mapName, 0);
+    }
+
+    public NodeTree getIfPresent(String mapName, long minVersion) {
+        NodeTree tree = enabled ? trees.getIfPresent(mapName) : null;
+        return (tree != null && tree.version() >= minVersion) ? tree : null;
+    }
+
+    public void invalidate(String mapName) {
+        trees.invalidate(mapName);
+    }
+}
@@ -0,0 +1,64 @@
+package com.mind.map.api.services;
+
+import com.mind.map.api.MapChangeRepository;
+import com.mind.map.api.domain.MapChange;
+import com.mind.map.api.domain.Node;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+@Component
+@Slf4j
+public class MapChangeLog {
+    private final MapChangeRepository repository;
+    private final boolean enabled;
+
+    public MapChangeLog(MapChangeRepository repository, MongoTemplate mongoTemplate,
+                        @Value("${mindmap.changes.enabled:false}") boolean enabled,
+                        @Value("${mindmap.changes.ttl:1h}") Duration ttl) {
+        this.repository = repository;
+        this.enabled = enabled;
+        if (enabled) {
+            mongoTemplate.indexOps(MapChange.class).ensureIndex(new Index()
+                    .on("createdAt", Sort.Direction.ASC)
+                    .named("createdAt_ttl")
+                    .expire(ttl));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void record(String mapName, long version, List<Node> nodes) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            repository.insert(MapChange.builder()
+                    .mapName(mapName)
+                    .version(version)
+                    .nodes(nodes)
+                    .createdAt(new Date())
+                    .build());
+        } catch (DataAccessException ex) {
+            log.warn("Unable to record the change to version={} of map name={}, clients behind it will resync", version, mapName, ex);
+        }
+    }
+
+    public List<MapChange> since(String mapName, long version) {
+        if (!enabled) {
+            return Collections.emptyList();
+        }
+        return repository.findByMapNameAndVersionGreaterThanOrderByVersion(mapName, version);
+    }
+}
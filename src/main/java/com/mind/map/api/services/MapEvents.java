@@ -0,0 +1,181 @@
+package com.mind.map.api.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mind.map.api.domain.MapChangesResponse;
+import com.mind.map.api.domain.Node;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+@Component
+@Slf4j
+public class MapEvents {
+    static final String EVENT_NAME = "changes";
+
+    private final ObjectMapper mapper;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final ExecutorService executor;
+    private final java.util.Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    public MapEvents(ObjectMapper mapper,
+                     @Value("${mindmap.events.buffer-size:64}") int bufferSize,
+                     @Value("${mindmap.events.timeout:30m}") Duration timeout,
+                     @Value("${mindmap.events.threads:4}") int threads) {
+        this.mapper = mapper;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("map-events-");
+        threadFactory.setDaemon(true);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        this.executor = executor;
+    }
+
+    public SseEmitter subscribe(String mapName, Supplier<MapChangesResponse> initial) {
+        Subscriber subscriber = new Subscriber(mapName, emitter(timeoutMillis));
+        subscribers.computeIfAbsent(mapName, name -> new CopyOnWriteArrayList<>()).add(subscriber);
+        try {
+            subscriber.start(event(initial.get()));
+        } catch (RuntimeException ex) {
+            remove(subscriber);
+            throw ex;
+        }
+        return subscriber.emitter;
+    }
+
+    public void publish(String mapName, long version, List<Node> nodes) {
+        List<Subscriber> mapSubscribers = subscribers.get(mapName);
+        if (mapSubscribers == null || mapSubscribers.isEmpty()) {
+            return;
+        }
+        Event event = event(MapChangesResponse.builder().version(version).nodes(nodes).build());
+        for (Subscriber subscriber : mapSubscribers) {
+            if (!subscriber.offer(event)) {
+                log.debug("Dropping a slow subscriber of map name={} at version={}", mapName, version);
+                remove(subscriber);
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    public int subscribers(String mapName) {
+        List<Subscriber> mapSubscribers = subscribers.get(mapName);
+        return (mapSubscribers == null) ? 0 : mapSubscribers.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    SseEmitter emitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private Event event(MapChangesResponse changes) {
+        try {
+            return new Event(changes.getVersion(), mapper.writeValueAsString(changes));
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.mapName, (name, mapSubscribers) -> {
+            mapSubscribers.remove(subscriber);
+            return mapSubscribers.isEmpty() ? null : mapSubscribers;
+        });
+    }
+
+    private static class Event {
+        private final long version;
+        private final String data;
+
+        Event(long version, String data) {
+            this.version = version;
+            this.data = data;
+        }
+    }
+
+    private class Subscriber implements Runnable {
+        private final String mapName;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean(true);
+        private volatile Event initial;
+        private long lastVersion = -1;
+
+        Subscriber(String mapName, SseEmitter emitter) {
+            this.mapName = mapName;
+            this.emitter = emitter;
+            emitter.onCompletion(() -> remove(this));
+            emitter.onTimeout(() -> remove(this));
+            emitter.onError(ex -> remove(this));
+        }
+
+        void start(Event initial) {
+            this.initial = initial;
+            executor.execute(this);
+        }
+
+        boolean offer(Event event) {
+            if (!queue.offer(event)) {
+                return false;
+            }
+            if (draining.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (initial != null) {
+                    send(initial);
+                    initial = null;
+                }
+                do {
+                    for (Event event = queue.poll(); event != null; event = queue.poll()) {
+                        if (event.version > lastVersion) {
+                            send(event);
+                        }
+                    }
+                    draining.set(false);
+                } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException ex) {
+                remove(this);
+                emitter.completeWithError(ex);
+            }
+        }
+
+        private void send(Event event) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(Long.toString(event.version))
+                    .name(EVENT_NAME)
+                    .data(event.data, MediaType.APPLICATION_JSON));
+            lastVersion = event.version;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.mind.map.api.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.mind.map.api.domain.Node;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Component
+public class MapMetrics {
+    public static final String FETCH = "fetch";
+    public static final String INDEX = "index";
+    public static final String ASSEMBLE = "assemble";
+    public static final String RENDER = "render";
+    public static final String SERIALIZE = "serialize";
+    public static final String SAVE = "save";
+
+    private static final int DOCUMENT_BYTES = 64;
+    private static final int NODE_BYTES = (1 + 1 + 4 + 1) + (1 + 5 + 4 + 1) + (1 + 11 + 4 + 1);
+    private static final int OBJECT_ID_BYTES = 1 + 4 + 12;
+    private static final int STRING_ID_BYTES = 1 + 4 + 4 + 1;
+    private static final int TEXT_BYTES = 1 + 5 + 4 + 1;
+
+    private final MeterRegistry registry;
+    private final boolean requestTiming;
+    private final Cache<String, MapSize> maps;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public MapMetrics(MeterRegistry registry,
+                      @Value("${mindmap.metrics.max-maps:100}") int maxMaps,
+                      @Value("${mindmap.server-timing.enabled:false}") boolean requestTiming) {
+        this.registry = registry;
+        this.requestTiming = requestTiming;
+        this.maps = Caffeine.newBuilder()
+                .maximumSize(maxMaps)
+                .executor(Runnable::run)
+                .removalListener((String name, MapSize size, RemovalCause cause) -> size.remove())
+                .build();
+    }
+
+    public <T> T time(String stage, String endpoint, Supplier<T> work) {
+        long start = start();
+        try {
+            return work.get();
+        } finally {
+            stop(start, stage, endpoint);
+        }
+    }
+
+    public long start() {
+        return registry.config().clock().monotonicTime();
+    }
+
+    public void stop(long start, String stage, String endpoint) {
+        long duration = registry.config().clock().monotonicTime() - start;
+        timer(stage, endpoint).record(duration, TimeUnit.NANOSECONDS);
+        if (requestTiming) {
+            RequestTiming timing = RequestTiming.current();
+            if (timing != null) {
+                timing.add(stage, duration);
+            }
+        }
+    }
+
+    public void nodes(String stage, String endpoint, int count) {
+        summaries.computeIfAbsent(stage + ':' + endpoint, key -> DistributionSummary.builder("mindmap.stage.nodes")
+                .description("Nodes read or written by a stage of a map request")
+                .tag("stage", stage)
+                .tag("endpoint", endpoint)
+                .baseUnit("nodes")
+                .publishPercentileHistogram()
+                .register(registry))
+                .record(count);
+    }
+
+    public void mapLoaded(String mapName, List<Node> nodes) {
+        MapSize size = maps.get(mapName, name -> new MapSize(registry, name));
+        size.nodes.set(nodes.size());
+        size.bytes.set(documentBytes(nodes));
+    }
+
+    public void mapGrown(String mapName, List<Node> nodes) {
+        MapSize size = maps.getIfPresent(mapName);
+        if (size != null) {
+            long firstIndex = size.nodes.getAndAdd(nodes.size());
+            size.bytes.addAndGet(nodeBytes(nodes, firstIndex));
+        }
+    }
+
+    static long documentBytes(List<Node> nodes) {
+        return DOCUMENT_BYTES + nodeBytes(nodes, 0);
+    }
+
+    private static long nodeBytes(List<Node> nodes, long firstIndex) {
+        long bytes = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            bytes += NODE_BYTES + digits(firstIndex + i) + node.getName().length() + node.getParentPath().length();
+            if (node.getId() != null) {
+                bytes += isObjectId(node.getId()) ? OBJECT_ID_BYTES : STRING_ID_BYTES + node.getId().length();
+            }
+            if (!node.getText().isEmpty()) {
+                bytes += TEXT_BYTES + node.getText().length();
+            }
+        }
+        return bytes;
+    }
+
+    private Timer timer(String stage, String endpoint) {
+        return timers.computeIfAbsent(stage + ':' + endpoint, key -> Timer.builder("mindmap.stage")
+                .description("Time spent in a stage of a map request")
+                .tag("stage", stage)
+                .tag("endpoint", endpoint)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    private static int digits(long index) {
+        int digits = 1;
+        for (long i = index; i >= 10; i /= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private static boolean isObjectId(String id) {
+        if (id.length() != 24) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            if (Character.digit(id.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class MapSize {
+        private final MeterRegistry registry;
+        private final AtomicLong nodes = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final Gauge nodeGauge;
+        private final Gauge bytesGauge;
+
+        MapSize(MeterRegistry registry, String mapName) {
+            this.registry = registry;
+            this.nodeGauge = Gauge.builder("mindmap.map.nodes", nodes, AtomicLong::get)
+                    .description("Nodes of a recently loaded map")
+                    .tag("map", mapName)
+                    .baseUnit("nodes")
+                    .register(registry);
+            this.bytesGauge = Gauge.builder("mindmap.map.document.size", bytes, AtomicLong::get)
+                    .description("Estimated BSON size of a recently loaded map")
+                    .tag("map", mapName)
+                    .baseUnit("bytes")
+                    .register(registry);
+        }
+
+        void remove() {
+            registry.remove(nodeGauge);
+            registry.remove(bytesGauge);
+        }
+    }
+}
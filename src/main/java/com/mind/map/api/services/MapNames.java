@@ -0,0 +1,106 @@
+package com.mind.map.api.services;
+
+import com.mind.map.api.MapRepository;
+import com.mind.map.api.domain.Map;
+import com.mind.map.api.exceptions.NotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@Component
+@Slf4j
+public class MapNames {
+    private final MapRepository repository;
+    private final boolean enabled;
+    private final double falsePositiveRate;
+    private final ScheduledExecutorService scheduler;
+    private volatile long expectedMaps;
+    private volatile BloomFilter filter;
+    private volatile Set<String> pending;
+
+    public MapNames(MapRepository repository,
+                    @Value("${mindmap.map-names.enabled:false}") boolean enabled,
+                    @Value("${mindmap.map-names.expected-maps:1000000}") long expectedMaps,
+                    @Value("${mindmap.map-names.false-positive-rate:0.01}") double falsePositiveRate,
+                    @Value("${mindmap.map-names.reseed-interval:5m}") Duration reseedInterval) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.expectedMaps = expectedMaps;
+        this.falsePositiveRate = falsePositiveRate;
+        if (enabled) {
+            CustomizableThreadFactory threads = new CustomizableThreadFactory("map-names-");
+            threads.setDaemon(true);
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(threads);
+            this.scheduler.scheduleWithFixedDelay(this::seed, 0, reseedInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    public boolean mightExist(String mapName) {
+        BloomFilter current = filter;
+        return current == null || current.mightContain(mapName);
+    }
+
+    public void checkExists(String mapName) {
+        if (!mightExist(mapName)) {
+            throw new NotFoundException(String.format("Unable to find a map with name=%s", mapName), false);
+        }
+    }
+
+    public void add(String mapName) {
+        if (!enabled) {
+            return;
+        }
+        Set<String> names = pending;
+        if (names != null) {
+            names.add(mapName);
+        }
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(mapName);
+        }
+    }
+
+    private void seed() {
+        Set<String> names = ConcurrentHashMap.newKeySet();
+        pending = names;
+        try {
+            BloomFilter next = new BloomFilter(expectedMaps, falsePositiveRate);
+            long count = 0;
+            try (Stream<Map> maps = repository.findAllNames()) {
+                for (Iterator<Map> it = maps.iterator(); it.hasNext(); count++) {
+                    next.put(it.next().getName());
+                }
+            }
+            filter = next;
+            names.forEach(next::put);
+            if (count * 2 > expectedMaps) {
+                expectedMaps = count * 2;
+            }
+            log.debug("Seeded map names count={} bits={} hashes={}", count, next.bitSize(), next.hashCount());
+        } catch (RuntimeException ex) {
+            log.warn("Unable to seed map names, keeping the previous filter", ex);
+        } finally {
+            pending = null;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
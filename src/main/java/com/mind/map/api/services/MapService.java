@@ -1,123 +1,269 @@
 package com.mind.map.api.services;
 
-import com.mind.map.api.MapRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mind.map.api.domain.AddLeafResponse;
+import com.mind.map.api.domain.AddLeavesResponse;
 import com.mind.map.api.domain.CreateMapRequest;
 import com.mind.map.api.domain.Leaf;
 import com.mind.map.api.domain.Map;
+import com.mind.map.api.domain.MapChange;
+import com.mind.map.api.domain.MapChangesResponse;
 import com.mind.map.api.domain.Node;
-import com.mind.map.api.domain.NodeResponse;
 import com.mind.map.api.domain.ReadMapResponse;
 import com.mind.map.api.exceptions.AlreadyExistException;
 import com.mind.map.api.exceptions.NotFoundException;
+import com.mind.map.api.exceptions.WriteConflictException;
+import com.mind.map.api.ids.IdGenerator;
+import com.mind.map.api.storage.MapStorage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.UUID;
 
 @Service
 @Slf4j
 public class MapService {
-    private final MapRepository repository;
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+    private static final int PRETTY_CHUNK_SIZE = 8192;
+
+    private final MapStorage storage;
     private final Helper helper;
+    private final ObjectMapper mapper;
+    private final MapCache cache;
+    private final MapWriteQueue writeQueue;
+    private final IdGenerator idGenerator;
+    private final MapMetrics metrics;
+    private final MapChangeLog changeLog;
+    private final MapEvents events;
+    private final MapNames names;
 
-    public MapService(MapRepository repository, Helper helper) {
-        this.repository = repository;
+    public MapService(MapStorage storage, Helper helper, ObjectMapper mapper, MapCache cache, MapWriteQueue writeQueue, IdGenerator idGenerator,
+                      MapMetrics metrics, MapChangeLog changeLog, MapEvents events, MapNames names) {
+        this.storage = storage;
         this.helper = helper;
+        this.mapper = mapper;
+        this.cache = cache;
+        this.writeQueue = writeQueue;
+        this.idGenerator = idGenerator;
+        this.metrics = metrics;
+        this.changeLog = changeLog;
+        this.events = events;
+        this.names = names;
     }
 
     public Map createMap(CreateMapRequest request) {
         try {
-            Map map = new Map();
-            map.setName(request.getId());
-            repository.insert(map);
+            Map map = metrics.time(MapMetrics.SAVE, "createMap", () -> storage.createMap(request.getId()));
+            cache.invalidate(request.getId());
+            names.add(request.getId());
             return map;
         } catch (DuplicateKeyException ex) {
+            names.add(request.getId());
             throw new AlreadyExistException(String.format("A map with a name=%s already exist", request.getId()));
         }
     }
 
-    public ReadMapResponse getMap(String mapName) {
-        Map map = repository.findByName(mapName);
-        if (map == null) {
+    public long getVersion(String mapName) {
+        names.checkExists(mapName);
+        Long version = storage.findVersion(mapName);
+        if (version == null) {
             throw new NotFoundException(String.format("Unable to find a map with name=%s", mapName));
         }
-        List<Node> mapNodes = map.getNodes();
-        String rootPath = "";
+        return version;
+    }
 
-        NodeResponse nodeResponse = NodeResponse.builder()
-                                    .nodes(new ArrayList<>())
-                                    .name(map.getName())
-                                    .build();
-        helper.addChildNodes(nodeResponse, mapNodes, rootPath);
+    public ReadMapResponse getMap(String mapName) {
+        return getMap(mapName, 0);
+    }
 
-        return ReadMapResponse.builder()
-                .nodes(Collections.singletonList(nodeResponse))
-                .build();
+    public ReadMapResponse getMap(String mapName, long minVersion) {
+        NodeTree tree = loadTree(mapName, minVersion, "getMap");
+        return metrics.time(MapMetrics.ASSEMBLE, "getMap", () -> helper.readSubtree(mapName, tree, "", Integer.MAX_VALUE));
     }
 
-    public String printMap(String map) {
-        ReadMapResponse mapResponse = getMap(map);
-        List<NodeResponse> nodes = mapResponse.getNodes();
-        StringBuilder pretty = new StringBuilder();
-        pretty.append("root/\n");
-        int tab = 0;
-        helper.printChildNodes(pretty, nodes.get(0).getNodes(), tab);
-        return pretty.toString();
+    public StreamingResponseBody streamMap(String mapName, long minVersion) {
+        NodeTree tree = loadTree(mapName, minVersion, "getMap");
+
+        return outputStream -> {
+            long start = metrics.start();
+            try {
+                try (JsonGenerator generator = mapper.getFactory().createGenerator(outputStream)) {
+                    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+                    helper.writeMap(generator, mapName, tree);
+                }
+            } finally {
+                metrics.stop(start, MapMetrics.SERIALIZE, "getMap");
+            }
+        };
+    }
+
+    public ReadMapResponse getSubtree(String mapName, String path, int depth, long minVersion) {
+        String rootPath = helper.trimSlashes(path);
+        NodeTree tree = loadSubtree(mapName, rootPath, depth, minVersion, "subtree");
+        return metrics.time(MapMetrics.ASSEMBLE, "subtree", () -> helper.readSubtree(mapName, tree, rootPath, depth));
+    }
+
+    public StreamingResponseBody printMap(String mapName, String path, int depth, long minVersion) {
+        String rootPath = helper.trimSlashes(path);
+        NodeTree tree = loadSubtree(mapName, rootPath, depth, minVersion, "pretty");
+        if (tree.find(rootPath) == NodeTree.NONE) {
+            throw new NotFoundException(String.format("Unable to find a node with path=%s in the map with name=%s", rootPath, mapName));
+        }
+        return outputStream -> {
+            long start = metrics.start();
+            try {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), PRETTY_CHUNK_SIZE);
+                helper.printNodes(writer, tree, rootPath, depth);
+                writer.flush();
+            } finally {
+                metrics.stop(start, MapMetrics.RENDER, "pretty");
+            }
+        };
     }
 
     public AddLeafResponse addLeaf(String mapName, Leaf request) {
-        Map map = repository.findByName(mapName);
-        if (map == null) {
-            throw new NotFoundException(String.format("Unable to find a map with name=%s", mapName));
+        names.checkExists(mapName);
+        String leafId = writeQueue.submit(mapName, request,
+                (name, leaves) -> addLeaves(name, new LeafBatch(helper, idGenerator, leaves), "addLeaf").getIds());
+        return AddLeafResponse.builder().id(leafId).build();
+    }
+
+    public AddLeavesResponse addLeaves(String mapName, List<Leaf> leaves) {
+        names.checkExists(mapName);
+        LeafBatch batch = new LeafBatch(helper, idGenerator, leaves);
+        return writeQueue.locked(mapName, () -> addLeaves(mapName, batch, "addLeaves"));
+    }
+
+    private AddLeavesResponse addLeaves(String mapName, LeafBatch batch, String endpoint) {
+        for (int attempt = 1; ; attempt++) {
+            Map map = metrics.time(MapMetrics.FETCH, endpoint, () -> storage.findNodes(mapName, batch.nodePaths()));
+            if (map == null) {
+                throw new NotFoundException(String.format("Unable to find a map with name=%s", mapName));
+            }
+
+            List<Node> newNodes = new ArrayList<>();
+            List<String> ids = batch.addTo(NodeIndex.of(map.getNodes()), newNodes);
+
+            if (newNodes.isEmpty()) {
+                return AddLeavesResponse.builder().ids(ids).build();
+            }
+            boolean inserted = metrics.time(MapMetrics.SAVE, endpoint, () -> insertNodes(mapName, newNodes, map.getVersion()));
+            if (inserted) {
+                metrics.nodes(MapMetrics.SAVE, endpoint, newNodes.size());
+                metrics.mapGrown(mapName, newNodes);
+                cache.patch(mapName, map.getVersion(), newNodes, map.getVersion() + LeafBatch.writeBatches(newNodes).size());
+                return AddLeavesResponse.builder().ids(ids).build();
+            }
+            cache.invalidate(mapName);
+            if (attempt >= MAX_WRITE_ATTEMPTS) {
+                throw new WriteConflictException(String.format("Unable to add %d leaves to the map with name=%s, too many concurrent updates", batch.size(), mapName));
+            }
+            log.debug("Concurrent update on map name={}, retrying addLeaves attempt={}", mapName, attempt + 1);
         }
+    }
 
-        String leafId = null;
-        String[] paths = request.getPath().split("/");
-        List<Node> nodes = map.getNodes();
-        StringBuilder parentPath = new StringBuilder();
-        int pointer = 1;
-        int pathsLength = paths.length;
-        for (String path : paths) {
-            leafId = UUID.randomUUID().toString();
-            parentPath.append("/");
-            parentPath.append(path);
-            String text = null;
-            if(helper.isLeafNode(pathsLength, pointer)) {
-                text = request.getText();
+    private boolean insertNodes(String mapName, List<Node> nodes, long version) {
+        for (List<Node> batch : LeafBatch.writeBatches(nodes)) {
+            if (!storage.insertNodes(mapName, batch, version)) {
+                return false;
             }
-            helper.createIfNotExistNode(nodes, parentPath.toString(), path, leafId, text);
+            changeLog.record(mapName, ++version, batch);
+            events.publish(mapName, version, batch);
+        }
+        return true;
+    }
 
-            pointer += 1;
+    public MapChangesResponse getChanges(String mapName, long since) {
+        long version = getVersion(mapName);
+        if (since > version || (since < version && !changeLog.isEnabled())) {
+            return MapChangesResponse.builder().version(version).resync(true).build();
         }
-        map.setNodes(nodes);
-        repository.save(map);
+        List<Node> nodes = new ArrayList<>();
+        long applied = since;
+        if (since < version) {
+            for (MapChange change : changeLog.since(mapName, since)) {
+                if (change.getVersion() != applied + 1) {
+                    break;
+                }
+                nodes.addAll(change.getNodes());
+                applied = change.getVersion();
+            }
+        }
+        if (applied < version) {
+            return MapChangesResponse.builder().version(version).resync(true).build();
+        }
+        return MapChangesResponse.builder().version(applied).nodes(nodes).build();
+    }
 
-        return AddLeafResponse.builder().id(leafId).build();
+    public SseEmitter subscribe(String mapName, Long since) {
+        return events.subscribe(mapName, () -> (since == null)
+                ? MapChangesResponse.builder().version(getVersion(mapName)).nodes(Collections.emptyList()).build()
+                : getChanges(mapName, since));
     }
 
     public Leaf readLeaf(String mapName, String leafId) {
-        Map map = repository.findByName(mapName);
-        if (map == null) {
-            throw new NotFoundException(String.format("Unable to find the leaf. A map with name=%s doesn't exist", mapName));
+        names.checkExists(mapName);
+        NodeTree tree = cache.getIfPresent(mapName);
+        Leaf cached = (tree == null) ? null : helper.readLeaf(tree, leafId);
+        if (cached != null) {
+            return cached;
+        }
+        Node node = metrics.time(MapMetrics.FETCH, "readLeaf", () -> storage.findNode(mapName, leafId));
+        if (node == null) {
+            if (!storage.exists(mapName)) {
+                throw new NotFoundException(String.format("Unable to find the leaf. A map with name=%s doesn't exist", mapName));
+            }
+            throw new NotFoundException(String.format("Unable to find the leaf with Id=%s", leafId));
         }
 
-        List<Node> nodes = map.getNodes();
+        return Leaf.builder()
+                .path(node.getPath())
+                .text(node.getText())
+                .build();
+    }
 
-        for(Node node: nodes) {
-            if(node.getId().equals(leafId)) {
-                return Leaf.builder()
-                        .path(node.getPath())
-                        .text(node.getText())
-                        .build();
+    private NodeTree loadTree(String mapName, long minVersion, String endpoint) {
+        names.checkExists(mapName);
+        NodeTree tree = cache.get(mapName, minVersion, name -> {
+            Map map = metrics.time(MapMetrics.FETCH, endpoint, () -> storage.findMap(name));
+            if (map == null) {
+                return null;
             }
+            metrics.nodes(MapMetrics.FETCH, endpoint, map.getNodes().size());
+            metrics.mapLoaded(name, map.getNodes());
+            return metrics.time(MapMetrics.INDEX, endpoint, () -> NodeTree.of(map.getNodes(), map.getVersion()));
+        });
+        if (tree == null) {
+            throw new NotFoundException(String.format("Unable to find a map with name=%s", mapName));
         }
-
-        throw new NotFoundException(String.format("Unable to find the leaf with Id=%s", leafId));
+        return tree;
     }
 
+    private NodeTree loadSubtree(String mapName, String rootPath, int depth, long minVersion, String endpoint) {
+        if (rootPath.isEmpty() && depth == Integer.MAX_VALUE) {
+            return loadTree(mapName, minVersion, endpoint);
+        }
+        names.checkExists(mapName);
+        NodeTree tree = cache.getIfPresent(mapName, minVersion);
+        if (tree != null) {
+            return tree;
+        }
+        List<Node> nodes = metrics.time(MapMetrics.FETCH, endpoint, () -> storage.findSubtree(mapName, rootPath, depth));
+        if (nodes == null) {
+            throw new NotFoundException(String.format("Unable to find a map with name=%s", mapName));
+        }
+        metrics.nodes(MapMetrics.FETCH, endpoint, nodes.size());
+        return metrics.time(MapMetrics.INDEX, endpoint, () -> NodeTree.of(nodes));
+    }
 }
@@ -0,0 +1,153 @@
+package com.mind.map.api.services;
+
+import com.mind.map.api.domain.Leaf;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+@Component
+public class MapWriteQueue {
+    private final StripedLocks locks;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final java.util.Map<String, Batch> batches = new ConcurrentHashMap<>();
+
+    public MapWriteQueue(@Value("${mindmap.write.lock-stripes:64}") int lockStripes,
+                         @Value("${mindmap.write.coalesce.window:0ms}") Duration window,
+                         @Value("${mindmap.write.coalesce.max-batch:256}") int maxBatch) {
+        this.locks = new StripedLocks(lockStripes);
+        this.windowNanos = window.toNanos();
+        this.maxBatch = maxBatch;
+    }
+
+    public <T> T locked(String mapName, Supplier<T> write) {
+        Lock lock = locks.get(mapName);
+        lock.lock();
+        try {
+            return write.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String submit(String mapName, Leaf leaf, BiFunction<String, List<Leaf>, List<String>> write) {
+        if (maxBatch <= 1) {
+            return locked(mapName, () -> write.apply(mapName, Collections.singletonList(leaf)).get(0));
+        }
+        PendingLeaf pending = new PendingLeaf(leaf);
+        Batch batch;
+        int position;
+        do {
+            batch = batches.computeIfAbsent(mapName, name -> new Batch(maxBatch));
+            position = batch.add(pending);
+            if (position < 0 || position == maxBatch - 1) {
+                batches.remove(mapName, batch);
+            }
+        } while (position < 0);
+
+        if (position == 0) {
+            commit(mapName, batch, write);
+        }
+        return pending.await();
+    }
+
+    private void commit(String mapName, Batch batch, BiFunction<String, List<Leaf>, List<String>> write) {
+        batch.awaitFull(windowNanos);
+        Lock lock = locks.get(mapName);
+        lock.lock();
+        try {
+            batches.remove(mapName, batch);
+            List<PendingLeaf> pending = batch.close();
+            List<Leaf> leaves = new ArrayList<>(pending.size());
+            for (PendingLeaf pendingLeaf : pending) {
+                leaves.add(pendingLeaf.leaf);
+            }
+            try {
+                List<String> ids = write.apply(mapName, leaves);
+                for (int i = 0; i < pending.size(); i++) {
+                    pending.get(i).result.complete(ids.get(i));
+                }
+            } catch (Throwable ex) {
+                for (PendingLeaf pendingLeaf : pending) {
+                    pendingLeaf.result.completeExceptionally(ex);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class Batch {
+        private final List<PendingLeaf> pending = new ArrayList<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+        private final int maxSize;
+        private boolean closed;
+
+        Batch(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        synchronized int add(PendingLeaf leaf) {
+            if (closed) {
+                return -1;
+            }
+            pending.add(leaf);
+            if (pending.size() >= maxSize) {
+                closed = true;
+                full.countDown();
+            }
+            return pending.size() - 1;
+        }
+
+        synchronized List<PendingLeaf> close() {
+            closed = true;
+            return pending;
+        }
+
+        void awaitFull(long nanos) {
+            if (nanos <= 0) {
+                return;
+            }
+            try {
+                full.await(nanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static class PendingLeaf {
+        private final Leaf leaf;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        PendingLeaf(Leaf leaf) {
+            this.leaf = leaf;
+        }
+
+        String await() {
+            try {
+                return result.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                if (ex.getCause() instanceof Error) {
+                    throw (Error) ex.getCause();
+                }
+                throw ex;
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.mind.map.api.services;
+
+import com.mind.map.api.domain.Node;
+
+import java.util.HashMap;
+import java.util.List;
+
+public class NodeIndex {
+    private final List<Node> nodes;
+    private final java.util.Map<NodeKey, Node> nodesByKey;
+
+    private NodeIndex(List<Node> nodes, java.util.Map<NodeKey, Node> nodesByKey) {
+        this.nodes = nodes;
+        this.nodesByKey = nodesByKey;
+    }
+
+    public static NodeIndex of(List<Node> nodes) {
+        java.util.Map<NodeKey, Node> nodesByKey = new HashMap<>(Math.max(16, nodes.size() * 4 / 3 + 1));
+        for (Node node : nodes) {
+            nodesByKey.putIfAbsent(NodeKey.of(node), node);
+        }
+        return new NodeIndex(nodes, nodesByKey);
+    }
+
+    public boolean contains(String path) {
+        return nodesByKey.containsKey(NodeKey.of(path));
+    }
+
+    public Node get(String path) {
+        return nodesByKey.get(NodeKey.of(path));
+    }
+
+    public Node get(String parentPath, String name) {
+        return nodesByKey.get(new NodeKey(parentPath, name));
+    }
+
+    public Node addIfAbsent(Node node) {
+        Node existing = nodesByKey.putIfAbsent(NodeKey.of(node), node);
+        if (existing != null) {
+            return existing;
+        }
+        nodes.add(node);
+        return node;
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+}
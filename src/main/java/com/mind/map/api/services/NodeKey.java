@@ -0,0 +1,42 @@
+package com.mind.map.api.services;
+
+import com.mind.map.api.domain.Node;
+
+// Identifies a node by its parent path and name, so lookups don't build the full path of every node
+final class NodeKey {
+    private final String parentPath;
+    private final String name;
+    private final int hash;
+
+    NodeKey(String parentPath, String name) {
+        this.parentPath = parentPath;
+        this.name = name;
+        this.hash = 31 * parentPath.hashCode() + name.hashCode();
+    }
+
+    static NodeKey of(Node node) {
+        return new NodeKey(node.getParentPath(), node.getName());
+    }
+
+    static NodeKey of(String path) {
+        int slash = path.lastIndexOf('/');
+        return (slash < 0) ? new NodeKey("", path) : new NodeKey(path.substring(0, slash), path.substring(slash + 1));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof NodeKey)) {
+            return false;
+        }
+        NodeKey key = (NodeKey) other;
+        return hash == key.hash && name.equals(key.name) && parentPath.equals(key.parentPath);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
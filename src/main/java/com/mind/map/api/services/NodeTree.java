@@ -0,0 +1,367 @@
+package com.mind.map.api.services;
+
+import com.mind.map.api.domain.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+public class NodeTree {
+    public static final int ROOT = 0;
+    public static final int NONE = -1;
+
+    private static final int DETACHED = -2;
+    private static final int NODE_BYTES = 48;
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    private final int[] parents;
+    private final int[] firstChildren;
+    private final int[] lastChildren;
+    private final int[] nextSiblings;
+    private final int[] nameOffsets;
+    private final char[] names;
+    private final String[] ids;
+    private final String[] texts;
+    private final int[] detached;
+    private volatile int[] idTable;
+    private final int count;
+    private final long estimatedBytes;
+    private final long version;
+
+    private NodeTree(Builder builder, long version) {
+        this.count = builder.count;
+        this.parents = trim(builder.parents, count);
+        this.firstChildren = trim(builder.firstChildren, count);
+        this.lastChildren = trim(builder.lastChildren, count);
+        this.nextSiblings = trim(builder.nextSiblings, count);
+        this.nameOffsets = trim(builder.nameOffsets, count + 1);
+        this.names = (builder.names.length == builder.nameOffsets[count]) ? builder.names : Arrays.copyOf(builder.names, builder.nameOffsets[count]);
+        this.ids = trim(builder.ids, count);
+        this.texts = trim(builder.texts, count);
+        this.detached = trim(builder.detached, builder.detachedCount);
+        long stringBytes = 0;
+        for (int node = ROOT + 1; node < count; node++) {
+            if (isNode(node)) {
+                stringBytes += stringBytes(ids[node]) + stringBytes(texts[node]);
+            }
+        }
+        this.estimatedBytes = (long) NODE_BYTES * count + 2L * names.length + stringBytes;
+        this.version = version;
+    }
+
+    public static NodeTree of(List<Node> nodes) {
+        return of(nodes, 0);
+    }
+
+    public static NodeTree of(List<Node> nodes, long version) {
+        java.util.Map<NodeKey, Integer> slots = new HashMap<>(Math.max(16, nodes.size() * 4 / 3 + 1));
+        int chars = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            slots.putIfAbsent(NodeKey.of(nodes.get(i)), i + 1);
+            chars += nodes.get(i).getName().length();
+        }
+        // Siblings share their parent path, so each distinct one is resolved once
+        java.util.Map<String, Integer> resolvedParents = new HashMap<>();
+        int[] parentSlots = new int[nodes.size()];
+        List<String> detachedPaths = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            String parentPath = nodes.get(i).getParentPath();
+            Integer parent = parentPath.isEmpty() ? Integer.valueOf(ROOT) : resolvedParents.get(parentPath);
+            if (parent == null) {
+                parent = slots.get(NodeKey.of(parentPath));
+                if (parent == null) {
+                    parent = nodes.size() + 1 + detachedPaths.size();
+                    detachedPaths.add(parentPath);
+                    chars += parentPath.length();
+                }
+                resolvedParents.put(parentPath, parent);
+            }
+            parentSlots[i] = parent;
+        }
+        Builder builder = new Builder(nodes.size() + 1 + detachedPaths.size(), chars);
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            builder.add(parentSlots[i], node.getName(), node.getId(), node.getText());
+        }
+        for (String detachedPath : detachedPaths) {
+            builder.add(DETACHED, detachedPath, null, null);
+        }
+        return new NodeTree(builder, version);
+    }
+
+    public NodeTree withNodes(List<Node> nodes, long version) {
+        Builder builder = new Builder(this, nodes.size());
+        java.util.Map<String, Integer> slots = new HashMap<>();
+        for (Node node : nodes) {
+            String parentPath = node.getParentPath();
+            Integer parent = slots.get(parentPath);
+            if (parent == null) {
+                int resolved = resolve(parentPath);
+                parent = (resolved == NONE) ? builder.add(DETACHED, parentPath, null, null) : resolved;
+                slots.put(parentPath, parent);
+            }
+            slots.putIfAbsent(node.getPath(), builder.add(parent, node.getName(), node.getId(), node.getText()));
+        }
+        return new NodeTree(builder, version);
+    }
+
+    public int find(String path) {
+        int node = resolve(path);
+        return (node > ROOT && !isNode(node)) ? NONE : node;
+    }
+
+    public int findById(String id) {
+        int[] idTable = idTable();
+        int mask = idTable.length - 1;
+        for (int slot = spread(id.hashCode()) & mask; idTable[slot] != 0; slot = (slot + 1) & mask) {
+            int node = idTable[slot] - 1;
+            if (id.equals(ids[node])) {
+                return node;
+            }
+        }
+        return NONE;
+    }
+
+    public int firstChild(int node) {
+        return (node == NONE) ? NONE : firstChildren[node];
+    }
+
+    public int nextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    public String name(int node) {
+        return new String(names, nameOffsets[node], nameLength(node));
+    }
+
+    public String path(int node) {
+        int length = 0;
+        for (int current = node; current > ROOT; current = parents[current]) {
+            length += nameLength(current) + ((length > 0) ? 1 : 0);
+        }
+        char[] path = new char[length];
+        int end = length;
+        for (int current = node; current > ROOT; current = parents[current]) {
+            if (end < length) {
+                path[--end] = '/';
+            }
+            end -= nameLength(current);
+            System.arraycopy(names, nameOffsets[current], path, end, nameLength(current));
+        }
+        return new String(path);
+    }
+
+    public String id(int node) {
+        return ids[node];
+    }
+
+    public String text(int node) {
+        return (texts[node] == null) ? "" : texts[node];
+    }
+
+    public int size() {
+        return count - 1 - detached.length;
+    }
+
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    char[] names() {
+        return names;
+    }
+
+    int nameOffset(int node) {
+        return nameOffsets[node];
+    }
+
+    int nameLength(int node) {
+        return nameOffsets[node + 1] - nameOffsets[node];
+    }
+
+    private boolean isNode(int node) {
+        return parents[node] != DETACHED;
+    }
+
+    private int resolve(String path) {
+        if (path.isEmpty()) {
+            return ROOT;
+        }
+        int node = descend(ROOT, path, 0);
+        for (int i = 0; node == NONE && i < detached.length; i++) {
+            int length = nameLength(detached[i]);
+            if (nameEquals(detached[i], path, 0, Math.min(length, path.length()))) {
+                if (length == path.length()) {
+                    node = detached[i];
+                } else if (path.charAt(length) == '/') {
+                    node = descend(detached[i], path, length + 1);
+                }
+            }
+        }
+        return node;
+    }
+
+    private int descend(int parent, String path, int start) {
+        while (true) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            int child = firstChildren[parent];
+            while (child != NONE && !nameEquals(child, path, start, end)) {
+                child = nextSiblings[child];
+            }
+            if (child == NONE || end == path.length()) {
+                return child;
+            }
+            parent = child;
+            start = end + 1;
+        }
+    }
+
+    private boolean nameEquals(int node, String path, int start, int end) {
+        int offset = nameOffsets[node];
+        if (nameLength(node) != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (names[offset++] != path.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int[] idTable() {
+        int[] idTable = this.idTable;
+        if (idTable == null) {
+            idTable = new int[Integer.highestOneBit(Math.max(count, 8) * 2) * 2];
+            int mask = idTable.length - 1;
+            for (int node = ROOT + 1; node < count; node++) {
+                if (!isNode(node) || ids[node] == null) {
+                    continue;
+                }
+                int slot = spread(ids[node].hashCode()) & mask;
+                while (idTable[slot] != 0 && !ids[node].equals(ids[idTable[slot] - 1])) {
+                    slot = (slot + 1) & mask;
+                }
+                if (idTable[slot] == 0) {
+                    idTable[slot] = node + 1;
+                }
+            }
+            this.idTable = idTable;
+        }
+        return idTable;
+    }
+
+    private static int[] trim(int[] values, int length) {
+        return (values.length == length) ? values : Arrays.copyOf(values, length);
+    }
+
+    private static String[] trim(String[] values, int length) {
+        return (values.length == length) ? values : Arrays.copyOf(values, length);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static long stringBytes(String value) {
+        return (value == null) ? 0 : STRING_OVERHEAD_BYTES + 2L * value.length();
+    }
+
+    private static class Builder {
+        private int[] parents;
+        private int[] firstChildren;
+        private int[] lastChildren;
+        private int[] nextSiblings;
+        private int[] nameOffsets;
+        private char[] names;
+        private String[] ids;
+        private String[] texts;
+        private int[] detached = new int[0];
+        private int detachedCount;
+        private int count;
+
+        Builder(int capacity, int chars) {
+            parents = new int[capacity];
+            firstChildren = new int[capacity];
+            lastChildren = new int[capacity];
+            nextSiblings = new int[capacity];
+            nameOffsets = new int[capacity + 1];
+            names = new char[chars];
+            ids = new String[capacity];
+            texts = new String[capacity];
+            Arrays.fill(firstChildren, NONE);
+            Arrays.fill(lastChildren, NONE);
+            add(NONE, "", null, null);
+        }
+
+        Builder(NodeTree tree, int extra) {
+            int capacity = tree.count + extra;
+            parents = Arrays.copyOf(tree.parents, capacity);
+            firstChildren = Arrays.copyOf(tree.firstChildren, capacity);
+            lastChildren = Arrays.copyOf(tree.lastChildren, capacity);
+            nextSiblings = Arrays.copyOf(tree.nextSiblings, capacity);
+            nameOffsets = Arrays.copyOf(tree.nameOffsets, capacity + 1);
+            names = Arrays.copyOf(tree.names, tree.names.length + extra * 8);
+            ids = Arrays.copyOf(tree.ids, capacity);
+            texts = Arrays.copyOf(tree.texts, capacity);
+            detached = tree.detached.clone();
+            detachedCount = detached.length;
+            count = tree.count;
+            Arrays.fill(firstChildren, count, capacity, NONE);
+            Arrays.fill(lastChildren, count, capacity, NONE);
+        }
+
+        int add(int parent, String name, String id, String text) {
+            ensureCapacity(count + 1, nameOffsets[count] + name.length());
+            int node = count++;
+            parents[node] = parent;
+            nextSiblings[node] = NONE;
+            name.getChars(0, name.length(), names, nameOffsets[node]);
+            nameOffsets[node + 1] = nameOffsets[node] + name.length();
+            ids[node] = id;
+            texts[node] = text;
+            if (parent == DETACHED) {
+                if (detachedCount == detached.length) {
+                    detached = Arrays.copyOf(detached, Math.max(4, detachedCount * 2));
+                }
+                detached[detachedCount++] = node;
+            } else if (parent != NONE) {
+                if (lastChildren[parent] == NONE) {
+                    firstChildren[parent] = node;
+                } else {
+                    nextSiblings[lastChildren[parent]] = node;
+                }
+                lastChildren[parent] = node;
+            }
+            return node;
+        }
+
+        private void ensureCapacity(int nodes, int chars) {
+            if (chars > names.length) {
+                names = Arrays.copyOf(names, Math.max(chars, names.length * 2));
+            }
+            if (nodes <= parents.length) {
+                return;
+            }
+            int length = parents.length;
+            int capacity = Math.max(nodes, length * 2);
+            parents = Arrays.copyOf(parents, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            lastChildren = Arrays.copyOf(lastChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            nameOffsets = Arrays.copyOf(nameOffsets, capacity + 1);
+            ids = Arrays.copyOf(ids, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+            Arrays.fill(firstChildren, length, capacity, NONE);
+            Arrays.fill(lastChildren, length, capacity, NONE);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.mind.map.api.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mind.map.api.ReactiveMapRepository;
+import com.mind.map.api.domain.AddLeafResponse;
+import com.mind.map.api.domain.AddLeavesResponse;
+import com.mind.map.api.domain.CreateMapRequest;
+import com.mind.map.api.domain.Leaf;
+import com.mind.map.api.domain.Map;
+import com.mind.map.api.domain.Node;
+import com.mind.map.api.domain.ReadMapResponse;
+import com.mind.map.api.exceptions.AlreadyExistException;
+import com.mind.map.api.exceptions.NotFoundException;
+import com.mind.map.api.exceptions.WriteConflictException;
+import com.mind.map.api.ids.IdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@Service
+@Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveMapService {
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+    private static final int CHUNK_SIZE = 8192;
+
+    private final ReactiveMapRepository repository;
+    private final Helper helper;
+    private final ObjectMapper mapper;
+    private final MapCache cache;
+    private final IdGenerator idGenerator;
+    private final MapNames names;
+
+    public ReactiveMapService(ReactiveMapRepository repository, Helper helper, ObjectMapper mapper, MapCache cache, IdGenerator idGenerator, MapNames names) {
+        this.repository = repository;
+        this.helper = helper;
+        this.mapper = mapper;
+        this.cache = cache;
+        this.idGenerator = idGenerator;
+        this.names = names;
+    }
+
+    public Mono<Map> createMap(CreateMapRequest request) {
+        Map map = new Map();
+        map.setName(request.getId());
+        return repository.insert(map)
+                .doOnSuccess(created -> {
+                    cache.invalidate(request.getId());
+                    names.add(request.getId());
+                })
+                .doOnError(DuplicateKeyException.class, ex -> names.add(request.getId()))
+                .onErrorMap(DuplicateKeyException.class,
+                        ex -> new AlreadyExistException(String.format("A map with a name=%s already exist", request.getId())));
+    }
+
+    public Mono<Long> getVersion(String mapName) {
+        if (!names.mightExist(mapName)) {
+            return Mono.error(unknownMap(mapName));
+        }
+        return repository.findVersionByName(mapName)
+                .map(Map::getVersion)
+                .switchIfEmpty(Mono.error(() -> mapNotFound(mapName)));
+    }
+
+    public Flux<DataBuffer> streamMap(String mapName, long minVersion) {
+        return loadTree(mapName, minVersion).flatMapMany(tree -> chunked(outputStream -> {
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+                helper.writeMap(generator, mapName, tree);
+            }
+        }));
+    }
+
+    public Mono<ReadMapResponse> getSubtree(String mapName, String path, int depth, long minVersion) {
+        String rootPath = helper.trimSlashes(path);
+        return loadTree(mapName, minVersion).map(tree -> helper.readSubtree(mapName, tree, rootPath, depth));
+    }
+
+    public Flux<DataBuffer> printMap(String mapName, String path, int depth, long minVersion) {
+        String rootPath = helper.trimSlashes(path);
+        return loadTree(mapName, minVersion).flatMapMany(tree -> {
+            if (tree.find(rootPath) == NodeTree.NONE) {
+                return Flux.error(new NotFoundException(String.format("Unable to find a node with path=%s in the map with name=%s", rootPath, mapName)));
+            }
+            return chunked(outputStream -> {
+                Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+                helper.printNodes(writer, tree, rootPath, depth);
+                writer.flush();
+            });
+        });
+    }
+
+    public Mono<AddLeafResponse> addLeaf(String mapName, Leaf request) {
+        return addLeaves(mapName, Collections.singletonList(request))
+                .map(response -> AddLeafResponse.builder().id(response.getIds().get(0)).build());
+    }
+
+    public Mono<AddLeavesResponse> addLeaves(String mapName, List<Leaf> leaves) {
+        if (!names.mightExist(mapName)) {
+            return Mono.error(unknownMap(mapName));
+        }
+        LeafBatch batch = new LeafBatch(helper, idGenerator, leaves);
+        return Mono.defer(() -> repository.findByName(mapName))
+                .switchIfEmpty(Mono.error(() -> mapNotFound(mapName)))
+                .flatMap(map -> {
+                    List<Node> newNodes = new ArrayList<>();
+                    AddLeavesResponse response = AddLeavesResponse.builder()
+                            .ids(batch.addTo(NodeIndex.of(map.getNodes()), newNodes))
+                            .build();
+                    if (newNodes.isEmpty()) {
+                        return Mono.just(response);
+                    }
+                    return insertNodes(mapName, newNodes, map.getVersion())
+                            .doOnNext(inserted -> {
+                                if (inserted) {
+                                    cache.patch(mapName, map.getVersion(), newNodes, map.getVersion() + LeafBatch.writeBatches(newNodes).size());
+                                } else {
+                                    cache.invalidate(mapName);
+                                }
+                            })
+                            .flatMap(inserted -> inserted ? Mono.just(response) : Mono.error(new WriteConflictException(
+                                    String.format("Unable to add %d leaves to the map with name=%s, too many concurrent updates", batch.size(), mapName))));
+                })
+                .retryWhen(Retry.max(MAX_WRITE_ATTEMPTS - 1)
+                        .filter(WriteConflictException.class::isInstance)
+                        .doBeforeRetry(signal -> log.debug("Concurrent update on map name={}, retrying addLeaves attempt={}", mapName, signal.totalRetries() + 2))
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    public Mono<Leaf> readLeaf(String mapName, String leafId) {
+        if (!names.mightExist(mapName)) {
+            return Mono.error(unknownMap(mapName));
+        }
+        return Mono.justOrEmpty(cache.getIfPresent(mapName))
+                .flatMap(tree -> Mono.justOrEmpty(helper.readLeaf(tree, leafId)))
+                .switchIfEmpty(Mono.defer(() -> repository.findByNameAndNodeId(mapName, leafId))
+                        .filter(map -> !map.getNodes().isEmpty())
+                        .map(map -> map.getNodes().get(0))
+                        .map(node -> Leaf.builder()
+                                .path(node.getPath())
+                                .text(node.getText())
+                                .build()))
+                .switchIfEmpty(Mono.defer(() -> repository.existsByName(mapName)
+                        .flatMap(exists -> Mono.error(exists
+                                ? new NotFoundException(String.format("Unable to find the leaf with Id=%s", leafId))
+                                : new NotFoundException(String.format("Unable to find the leaf. A map with name=%s doesn't exist", mapName))))));
+    }
+
+    private Mono<Boolean> insertNodes(String mapName, List<Node> nodes, long version) {
+        List<List<Node>> batches = LeafBatch.writeBatches(nodes);
+        return Flux.range(0, batches.size())
+                .concatMap(i -> repository.pushNodes(mapName, batches.get(i), version + i))
+                .takeUntil(inserted -> !inserted)
+                .all(Boolean::booleanValue);
+    }
+
+    private Mono<NodeTree> loadTree(String mapName, long minVersion) {
+        if (!names.mightExist(mapName)) {
+            return Mono.error(unknownMap(mapName));
+        }
+        return Mono.justOrEmpty(cache.getIfPresent(mapName, minVersion))
+                .switchIfEmpty(Mono.defer(() -> repository.findByName(mapName)
+                        .map(map -> cache.put(mapName, NodeTree.of(map.getNodes(), map.getVersion())))))
+                .switchIfEmpty(Mono.error(() -> mapNotFound(mapName)));
+    }
+
+    private NotFoundException mapNotFound(String mapName) {
+        return new NotFoundException(String.format("Unable to find a map with name=%s", mapName));
+    }
+
+    private NotFoundException unknownMap(String mapName) {
+        return new NotFoundException(String.format("Unable to find a map with name=%s", mapName), false);
+    }
+
+    private Flux<DataBuffer> chunked(Content content) {
+        return Flux.<DataBuffer>create(sink -> {
+            ChunkedOutputStream outputStream = new ChunkedOutputStream(sink);
+            sink.onRequest(outputStream::request);
+            sink.onDispose(outputStream::cancel);
+            try {
+                content.writeTo(outputStream);
+                outputStream.close();
+            } catch (CancelledException ex) {
+                return;
+            } catch (IOException | RuntimeException ex) {
+                sink.error(ex);
+                return;
+            }
+            sink.complete();
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private interface Content {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+
+    private static class CancelledException extends IOException {
+        CancelledException() {
+            super("The subscriber cancelled the response", null);
+        }
+    }
+
+    // Rendering blocks on a bounded elastic thread until the subscriber asks for the next chunk,
+    // so a slow client holds at most one chunk in memory and a cancelled one stops the rendering
+    private static class ChunkedOutputStream extends OutputStream {
+        private final FluxSink<DataBuffer> sink;
+        private byte[] chunk = new byte[CHUNK_SIZE];
+        private int count;
+        private long demand;
+        private boolean cancelled;
+
+        ChunkedOutputStream(FluxSink<DataBuffer> sink) {
+            this.sink = sink;
+        }
+
+        synchronized void request(long n) {
+            demand = (demand + n < 0) ? Long.MAX_VALUE : demand + n;
+            notifyAll();
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            notifyAll();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == chunk.length) {
+                emit();
+            }
+            chunk[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == chunk.length) {
+                    emit();
+                }
+                int copied = Math.min(len, chunk.length - count);
+                System.arraycopy(b, off, chunk, count, copied);
+                count += copied;
+                off += copied;
+                len -= copied;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (count > 0) {
+                emit();
+            }
+        }
+
+        private void emit() throws IOException {
+            awaitDemand();
+            sink.next(DefaultDataBufferFactory.sharedInstance.wrap(ByteBuffer.wrap(chunk, 0, count)));
+            chunk = new byte[CHUNK_SIZE];
+            count = 0;
+        }
+
+        private synchronized void awaitDemand() throws IOException {
+            try {
+                while (demand == 0 && !cancelled) {
+                    wait();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                cancelled = true;
+            }
+            if (cancelled) {
+                throw new CancelledException();
+            }
+            if (demand != Long.MAX_VALUE) {
+                demand--;
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.mind.map.api.services;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class RequestTiming {
+    public static final String ATTRIBUTE = RequestTiming.class.getName();
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+    private static final String[] STAGES = {
+            MapMetrics.FETCH, MapMetrics.INDEX, MapMetrics.ASSEMBLE, MapMetrics.RENDER, MapMetrics.SERIALIZE, MapMetrics.SAVE
+    };
+
+    // Stages of an async request can be recorded from several threads
+    private final AtomicLongArray nanos = new AtomicLongArray(STAGES.length);
+    private final long start;
+
+    private RequestTiming(long start) {
+        this.start = start;
+    }
+
+    public static RequestTiming start() {
+        RequestTiming timing = new RequestTiming(System.nanoTime());
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    public void attach() {
+        CURRENT.set(this);
+    }
+
+    public void end() {
+        CURRENT.remove();
+    }
+
+    public void add(String stage, long duration) {
+        for (int i = 0; i < STAGES.length; i++) {
+            if (STAGES[i].equals(stage)) {
+                nanos.addAndGet(i, duration);
+                return;
+            }
+        }
+    }
+
+    public long stage(String stage) {
+        for (int i = 0; i < STAGES.length; i++) {
+            if (STAGES[i].equals(stage)) {
+                return nanos.get(i);
+            }
+        }
+        return 0;
+    }
+
+    public long elapsed() {
+        return System.nanoTime() - start;
+    }
+
+    public String header() {
+        StringBuilder header = new StringBuilder(128);
+        for (int i = 0; i < STAGES.length; i++) {
+            long stage = nanos.get(i);
+            if (stage > 0) {
+                header.append(STAGES[i]).append(";dur=");
+                millis(header, stage).append(", ");
+            }
+        }
+        header.append("app;dur=");
+        return millis(header, elapsed()).toString();
+    }
+
+    public String summary() {
+        StringBuilder summary = new StringBuilder(128).append("total=");
+        millis(summary, elapsed()).append("ms");
+        for (int i = 0; i < STAGES.length; i++) {
+            long stage = nanos.get(i);
+            if (stage > 0) {
+                summary.append(' ').append(STAGES[i]).append('=');
+                millis(summary, stage).append("ms");
+            }
+        }
+        return summary.toString();
+    }
+
+    private static StringBuilder millis(StringBuilder builder, long nanos) {
+        long micros = nanos / 1000;
+        return builder.append(micros / 1000).append('.').append(micros % 1000 / 100);
+    }
+}
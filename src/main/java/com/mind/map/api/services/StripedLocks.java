@@ -0,0 +1,27 @@
+package com.mind.map.api.services;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+class StripedLocks {
+    private final Lock[] locks;
+    private final int mask;
+
+    StripedLocks(int stripes) {
+        int size = (stripes <= 1) ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.locks = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    Lock get(String key) {
+        int hash = key.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    int size() {
+        return locks.length;
+    }
+}
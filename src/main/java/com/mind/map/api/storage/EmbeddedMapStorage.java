@@ -0,0 +1,69 @@
+package com.mind.map.api.storage;
+
+import com.mind.map.api.MapRepository;
+import com.mind.map.api.domain.Map;
+import com.mind.map.api.domain.Node;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "mindmap.storage.mode", havingValue = "embedded", matchIfMissing = true)
+public class EmbeddedMapStorage implements MapStorage {
+    private final MapRepository repository;
+
+    public EmbeddedMapStorage(MapRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Map createMap(String name) {
+        Map map = new Map();
+        map.setName(name);
+        repository.insert(map);
+        return map;
+    }
+
+    @Override
+    public boolean exists(String name) {
+        return repository.existsByName(name);
+    }
+
+    @Override
+    public Map findMap(String name) {
+        return repository.findByName(name);
+    }
+
+    @Override
+    public Long findVersion(String name) {
+        Map map = repository.findVersionByName(name);
+        return (map == null) ? null : map.getVersion();
+    }
+
+    @Override
+    public Node findNode(String name, String nodeId) {
+        Map map = repository.findByNameAndNodeId(name, nodeId);
+        if (map == null || map.getNodes().isEmpty()) {
+            return null;
+        }
+        return map.getNodes().get(0);
+    }
+
+    @Override
+    public List<Node> findSubtree(String name, String path, int depth) {
+        Map map = repository.findByName(name);
+        return (map == null) ? null : map.getNodes();
+    }
+
+    @Override
+    public Map findNodes(String name, Collection<String> paths) {
+        return repository.findByName(name);
+    }
+
+    @Override
+    public boolean insertNodes(String name, List<Node> nodes, long expectedVersion) {
+        return repository.pushNodes(name, nodes, expectedVersion);
+    }
+}
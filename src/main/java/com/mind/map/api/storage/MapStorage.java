@@ -0,0 +1,25 @@
+package com.mind.map.api.storage;
+
+import com.mind.map.api.domain.Map;
+import com.mind.map.api.domain.Node;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface MapStorage {
+    Map createMap(String name);
+
+    boolean exists(String name);
+
+    Map findMap(String name);
+
+    Long findVersion(String name);
+
+    Node findNode(String name, String nodeId);
+
+    List<Node> findSubtree(String name, String path, int depth);
+
+    Map findNodes(String name, Collection<String> paths);
+
+    boolean insertNodes(String name, List<Node> nodes, long expectedVersion);
+}
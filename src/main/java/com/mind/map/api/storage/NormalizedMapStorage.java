@@ -0,0 +1,218 @@
+package com.mind.map.api.storage;
+
+import com.mind.map.api.MapRepository;
+import com.mind.map.api.MapRepositoryImpl;
+import com.mind.map.api.NodeRepository;
+import com.mind.map.api.domain.Map;
+import com.mind.map.api.domain.Node;
+import com.mind.map.api.domain.NodeDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Component
+@ConditionalOnProperty(name = "mindmap.storage.mode", havingValue = "normalized")
+public class NormalizedMapStorage implements MapStorage {
+    private final MapRepository mapRepository;
+    private final NodeRepository nodeRepository;
+    private final MongoTemplate mongoTemplate;
+    private final long writeLeaseMillis;
+    private final java.util.Map<String, String> mapIds = new ConcurrentHashMap<>();
+
+    public NormalizedMapStorage(MapRepository mapRepository, NodeRepository nodeRepository, MongoTemplate mongoTemplate,
+                                @Value("${mindmap.storage.write-lease:30s}") Duration writeLease) {
+        this.mapRepository = mapRepository;
+        this.nodeRepository = nodeRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.writeLeaseMillis = writeLease.toMillis();
+    }
+
+    @Override
+    public Map createMap(String name) {
+        Map map = new Map();
+        map.setName(name);
+        mapRepository.insert(map);
+        mapIds.put(name, map.getId());
+        return map;
+    }
+
+    @Override
+    public boolean exists(String name) {
+        return findMapId(name) != null;
+    }
+
+    @Override
+    public Map findMap(String name) {
+        Map map = mapRepository.findByName(name);
+        if (map == null) {
+            return null;
+        }
+        map.setVersion(committedVersion(map));
+        map.setNodes(toNodes(nodeRepository.findByMapIdOrderBySeq(map.getId())));
+        return map;
+    }
+
+    @Override
+    public Long findVersion(String name) {
+        Map map = mapRepository.findVersionByName(name);
+        return (map == null) ? null : committedVersion(map);
+    }
+
+    @Override
+    public Node findNode(String name, String nodeId) {
+        String mapId = findMapId(name);
+        if (mapId == null) {
+            return null;
+        }
+        NodeDocument document = nodeRepository.findByMapIdAndId(mapId, nodeId);
+        return (document == null) ? null : document.toNode();
+    }
+
+    @Override
+    public List<Node> findSubtree(String name, String path, int depth) {
+        String mapId = findMapId(name);
+        if (mapId == null) {
+            return null;
+        }
+        return toNodes(mongoTemplate.find(subtreeQuery(mapId, path, depth), NodeDocument.class));
+    }
+
+    Query subtreeQuery(String mapId, String path, int depth) {
+        Criteria criteria = Criteria.where("mapId").is(mapId);
+        if (!path.isEmpty()) {
+            criteria.orOperator(Criteria.where("path").is(path),
+                    Criteria.where("parentPath").is(path),
+                    Criteria.where("parentPath").regex("^" + escapeRegex(path) + "/"));
+        }
+        int rootDepth = NodeDocument.depthOf(path);
+        if (depth < Integer.MAX_VALUE - rootDepth) {
+            // Nodes normalized before depth was stored have no depth field until the migration backfills it
+            criteria.andOperator(new Criteria().orOperator(Criteria.where("depth").lte(rootDepth + depth),
+                    Criteria.where("depth").exists(false)));
+        }
+        return Query.query(criteria).with(Sort.by("seq"));
+    }
+
+    private String escapeRegex(String value) {
+        return value.replaceAll("[\\\\^$.|?*+()\\[\\]{}]", "\\\\$0");
+    }
+
+    @Override
+    public Map findNodes(String name, Collection<String> paths) {
+        Map map = mapRepository.findVersionByName(name);
+        if (map == null) {
+            return null;
+        }
+        mapIds.put(name, map.getId());
+        map.setNodes(toNodes(nodeRepository.findByMapIdAndPathIn(map.getId(), paths)));
+        return map;
+    }
+
+    @Override
+    public boolean insertNodes(String name, List<Node> nodes, long expectedVersion) {
+        String mapId = findMapId(name);
+        if (mapId == null) {
+            return false;
+        }
+        long claimedVersion = expectedVersion + 1;
+        String pendingWrite = "pendingWrites." + claimedVersion;
+        Map claimed = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(mapId)).addCriteria(MapRepositoryImpl.versionIs(expectedVersion)),
+                new Update().inc("version", 1).inc("nodeSeq", nodes.size())
+                        .set(pendingWrite, new Date(System.currentTimeMillis() + writeLeaseMillis)),
+                FindAndModifyOptions.options().returnNew(true),
+                Map.class);
+        if (claimed == null) {
+            return false;
+        }
+        long seq = claimed.getNodeSeq() - nodes.size();
+        List<NodeDocument> documents = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            documents.add(NodeDocument.of(mapId, node, seq++));
+        }
+        boolean inserted = false;
+        try {
+            nodeRepository.insert(documents);
+            inserted = true;
+            return true;
+        } catch (DuplicateKeyException ex) {
+            return false;
+        } finally {
+            // Updated by collection name, through Map.class the template would also bump the @Version field
+            String collection = mongoTemplate.getCollectionName(Map.class);
+            Update release = new Update().unset(pendingWrite);
+            expiredWrites(claimed).forEach(version -> release.unset("pendingWrites." + version));
+            if (inserted) {
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(mapId)), release, collection);
+            } else {
+                // The ordered insert keeps the documents before the failing one, remove them before giving the version back
+                List<String> ids = documents.stream().map(NodeDocument::getId).collect(Collectors.toList());
+                mongoTemplate.remove(Query.query(Criteria.where("mapId").is(mapId).and("_id").in(ids)), NodeDocument.class);
+                Query stillClaimed = Query.query(Criteria.where("_id").is(mapId).and("version").is(claimedVersion));
+                if (mongoTemplate.updateFirst(stillClaimed, release.inc("version", -1), collection).getMatchedCount() == 0) {
+                    mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(mapId)), new Update().unset(pendingWrite), collection);
+                }
+            }
+        }
+    }
+
+    private String findMapId(String name) {
+        String mapId = mapIds.get(name);
+        if (mapId == null) {
+            Map map = mapRepository.findIdByName(name);
+            if (map == null) {
+                return null;
+            }
+            mapId = map.getId();
+            mapIds.put(name, mapId);
+        }
+        return mapId;
+    }
+
+    // A write claims its version before inserting its nodes, and holds it with a lease until they are all in.
+    // Readers stay on the version before the oldest live claim, and a claim left by a crashed instance expires.
+    private static long committedVersion(Map map) {
+        long committed = map.getVersion();
+        if (map.getPendingWrites() != null) {
+            Date now = new Date();
+            for (java.util.Map.Entry<String, Date> pending : map.getPendingWrites().entrySet()) {
+                if (pending.getValue().after(now)) {
+                    committed = Math.min(committed, Long.parseLong(pending.getKey()) - 1);
+                }
+            }
+        }
+        return committed;
+    }
+
+    private static List<String> expiredWrites(Map map) {
+        if (map.getPendingWrites() == null) {
+            return Collections.emptyList();
+        }
+        Date now = new Date();
+        return map.getPendingWrites().entrySet().stream()
+                .filter(pending -> !pending.getValue().after(now))
+                .map(java.util.Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private List<Node> toNodes(List<NodeDocument> documents) {
+        return documents.stream()
+                .map(NodeDocument::toNode)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+}
@@ -0,0 +1,92 @@
+package com.mind.map.api.storage;
+
+import com.mind.map.api.MapRepositoryImpl;
+import com.mind.map.api.domain.Map;
+import com.mind.map.api.domain.Node;
+import com.mind.map.api.domain.NodeDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "mindmap.storage.migrate", havingValue = "true")
+@Slf4j
+public class NormalizedStorageMigration implements ApplicationRunner {
+    private static final int BACKFILL_BATCH = 1000;
+
+    private final MongoTemplate mongoTemplate;
+
+    public NormalizedStorageMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int migrated = 0;
+        Query query = Query.query(Criteria.where("nodes.0").exists(true));
+        try (CloseableIterator<Map> maps = mongoTemplate.stream(query, Map.class)) {
+            while (maps.hasNext()) {
+                migrate(maps.next());
+                migrated += 1;
+            }
+        }
+        log.info("Moved the embedded nodes of {} maps to the normalized node collection", migrated);
+        log.info("Stored the depth of {} normalized nodes written without it", backfillDepth());
+    }
+
+    void migrate(Map map) {
+        List<Node> nodes = map.getNodes();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NodeDocument.class);
+        long seq = 0;
+        for (Node node : nodes) {
+            NodeDocument document = NodeDocument.of(map.getId(), node, seq++);
+            Query byPath = Query.query(Criteria.where("mapId").is(map.getId()).and("path").is(document.getPath()));
+            bulk.replaceOne(byPath, document, FindAndReplaceOptions.options().upsert());
+        }
+        bulk.execute();
+
+        Query unchanged = Query.query(Criteria.where("_id").is(map.getId()))
+                .addCriteria(MapRepositoryImpl.versionIs(map.getVersion()));
+        Update clearNodes = new Update().set("nodes", new ArrayList<>()).set("nodeSeq", seq);
+        if (mongoTemplate.updateFirst(unchanged, clearNodes, Map.class).getModifiedCount() == 0) {
+            log.warn("The map name={} changed while it was migrated, its embedded nodes were kept", map.getName());
+        }
+    }
+
+    int backfillDepth() {
+        int backfilled = 0;
+        Query query = Query.query(Criteria.where("depth").exists(false));
+        try (CloseableIterator<NodeDocument> documents = mongoTemplate.stream(query, NodeDocument.class)) {
+            BulkOperations bulk = null;
+            while (documents.hasNext()) {
+                NodeDocument document = documents.next();
+                if (bulk == null) {
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NodeDocument.class);
+                }
+                Query byPath = Query.query(Criteria.where("mapId").is(document.getMapId()).and("path").is(document.getPath()));
+                bulk.updateOne(byPath, Update.update("depth", NodeDocument.depthOf(document.getPath())));
+                backfilled += 1;
+                if (backfilled % BACKFILL_BATCH == 0) {
+                    bulk.execute();
+                    bulk = null;
+                }
+            }
+            if (bulk != null) {
+                bulk.execute();
+            }
+        }
+        return backfilled;
+    }
+}
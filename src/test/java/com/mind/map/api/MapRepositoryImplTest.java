@@ -0,0 +1,80 @@
+package com.mind.map.api;
+
+import com.mind.map.api.domain.Map;
+import com.mind.map.api.domain.Node;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MapRepositoryImplTest {
+    @Nested
+    @DisplayName("Given a pushNodes CMD")
+    class PushNodes {
+        @Test
+        @DisplayName("Only match the map while it is still at the version the nodes were computed from")
+        void testPushNodesQuery() {
+            Document query = MapRepositoryImpl.pushNodesQuery("my-map", 3).getQueryObject();
+
+            assertEquals(Document.parse("{ 'name': 'my-map', 'version': { '$numberLong': '3' } }"), query);
+        }
+
+        @Test
+        @DisplayName("Case a map was stored before writes were versioned, then append to it at version 0")
+        void testPushNodesCaseMapWithoutVersion() {
+            MongoServer server = new MongoServer(new MemoryBackend());
+            MongoClient client = MongoClients.create("mongodb://localhost:" + server.bind().getPort());
+            try {
+                MongoTemplate mongoTemplate = new MongoTemplate(client, "mind-map");
+                mongoTemplate.getCollection("mind_map").insertOne(new Document("name", "my-map")
+                        .append("nodes", Collections.singletonList(new Document("id", "i-id").append("parentPath", "").append("name", "i"))));
+                MapRepository repository = new MongoRepositoryFactory(mongoTemplate)
+                        .getRepository(MapRepository.class, RepositoryComposition.RepositoryFragments.just(new MapRepositoryImpl(mongoTemplate)));
+
+                Map map = repository.findByName("my-map");
+                assertEquals(0, map.getVersion());
+                assertTrue(repository.pushNodes("my-map", nodes(), map.getVersion()));
+
+                Map updated = repository.findByName("my-map");
+                assertEquals(1, updated.getVersion());
+                assertEquals(3, updated.getNodes().size());
+                assertFalse(repository.pushNodes("my-map", nodes(), map.getVersion()));
+            } finally {
+                client.close();
+                server.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("Push every new node and bump the map version in a single update")
+        void testPushNodesUpdate() {
+            Update update = MapRepositoryImpl.pushNodesUpdate(nodes());
+            Update.Modifiers modifiers = (Update.Modifiers) update.getUpdateObject().get("$push", Document.class).get("nodes");
+
+            assertEquals(1, update.getUpdateObject().get("$inc", Document.class).get("version"));
+            assertEquals(2, ((Object[]) modifiers.getModifiers().iterator().next().getValue()).length);
+        }
+    }
+
+    private List<Node> nodes() {
+        return Arrays.asList(
+                Node.builder().parentPath("").name("u").id("u-id").build(),
+                Node.builder().parentPath("u").name("know").id("know-id").text("text text").build());
+    }
+}
@@ -0,0 +1,61 @@
+package com.mind.map.api;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VirtualThreadsConfigTest {
+
+    @Test
+    @DisplayName("Given Java 21 or later, run tasks on virtual threads")
+    void testNewExecutorCaseSupported() throws Exception {
+        assumeTrue(virtualThreadsAvailable());
+        ExecutorService executor = VirtualThreadsConfig.newVirtualThreadPerTaskExecutor();
+        try {
+            Object virtual = executor.submit(() -> Thread.class.getMethod("isVirtual").invoke(Thread.currentThread())).get();
+            assertEquals(Boolean.TRUE, virtual);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Given virtual threads are enabled, keep Boot's applicationTaskExecutor")
+    void testConfigCaseTaskExecutorKept() {
+        assumeTrue(virtualThreadsAvailable());
+        new WebApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(TaskExecutionAutoConfiguration.class))
+                .withUserConfiguration(VirtualThreadsConfig.class)
+                .withPropertyValues("mindmap.virtual-threads.enabled=true")
+                .run(context -> {
+                    assertTrue(context.containsBean("virtualThreadExecutor"));
+                    assertTrue(context.containsBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME));
+                });
+    }
+
+    @Test
+    @DisplayName("Given an older Java, fail fast on startup")
+    void testNewExecutorCaseUnsupported() {
+        assumeFalse(virtualThreadsAvailable());
+        assertThrows(IllegalStateException.class, VirtualThreadsConfig::newVirtualThreadPerTaskExecutor);
+    }
+
+    private boolean virtualThreadsAvailable() {
+        try {
+            Thread.class.getMethod("isVirtual");
+            return true;
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.mind.map.api.benchmarks;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.mind.map.api.domain.Leaf;
+import com.mind.map.api.domain.Node;
+import com.mind.map.api.ids.ObjectIdGenerator;
+import com.mind.map.api.services.Helper;
+import com.mind.map.api.services.LeafBatch;
+import com.mind.map.api.services.NodeIndex;
+import com.mind.map.api.services.NodeTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class HelperBenchmark {
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"6"})
+    int depth;
+
+    @Param({"8"})
+    int fanOut;
+
+    // Nodes added per write, half of them under paths that already exist
+    @Param({"100"})
+    int batch;
+
+    private final Helper helper = new Helper();
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final ObjectIdGenerator idGenerator = new ObjectIdGenerator();
+    private final CharArrayWriter pretty = new CharArrayWriter();
+    private final ByteArrayOutputStream json = new ByteArrayOutputStream();
+    private List<Node> nodes;
+    private List<Node> newNodes;
+    private List<Leaf> leaves;
+    private NodeTree tree;
+
+    @Setup
+    public void setUp() {
+        nodes = SyntheticMaps.nodes(size, depth, fanOut);
+        tree = NodeTree.of(nodes);
+        Random random = new Random(42);
+        newNodes = new ArrayList<>(batch);
+        leaves = new ArrayList<>(batch);
+        for (int i = 0; i < batch; i++) {
+            String path = nodes.get(random.nextInt(nodes.size())).getPath();
+            newNodes.add(Node.builder()
+                    .id(idGenerator.nextId())
+                    .name("new" + i)
+                    .parentPath(path)
+                    .text("text " + i)
+                    .build());
+            leaves.add(Leaf.builder()
+                    .path((i % 2 == 0) ? path : path + "/new" + i)
+                    .text("text " + i)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public CharArrayWriter printNodes() throws IOException {
+        pretty.reset();
+        helper.printNodes(pretty, tree, "", Integer.MAX_VALUE);
+        return pretty;
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream writeMap() throws IOException {
+        json.reset();
+        try (JsonGenerator generator = jsonFactory.createGenerator(json)) {
+            helper.writeMap(generator, "benchmark", tree);
+        }
+        return json;
+    }
+
+    @Benchmark
+    public NodeTree assembleTree() {
+        return NodeTree.of(nodes);
+    }
+
+    @Benchmark
+    public NodeTree appendNodes() {
+        return tree.withNodes(newNodes, 1);
+    }
+
+    @Benchmark
+    public List<Node> planLeafBatch() {
+        List<Node> added = new ArrayList<>();
+        new LeafBatch(helper, idGenerator, leaves).addTo(NodeIndex.of(new ArrayList<>(nodes)), added);
+        return added;
+    }
+}
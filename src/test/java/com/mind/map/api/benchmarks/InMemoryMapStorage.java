@@ -0,0 +1,98 @@
+package com.mind.map.api.benchmarks;
+
+import com.mind.map.api.domain.Map;
+import com.mind.map.api.domain.Node;
+import com.mind.map.api.services.NodeIndex;
+import com.mind.map.api.storage.MapStorage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+class InMemoryMapStorage implements MapStorage {
+    private final java.util.Map<String, Map> maps = new ConcurrentHashMap<>();
+    private final java.util.Map<String, Node> nodesById = new ConcurrentHashMap<>();
+
+    InMemoryMapStorage(Map... maps) {
+        for (Map map : maps) {
+            this.maps.put(map.getName(), map);
+            indexIds(map.getName(), map.getNodes());
+        }
+    }
+
+    @Override
+    public Map createMap(String name) {
+        Map map = new Map();
+        map.setName(name);
+        maps.put(name, map);
+        return map;
+    }
+
+    @Override
+    public boolean exists(String name) {
+        return maps.containsKey(name);
+    }
+
+    @Override
+    public Map findMap(String name) {
+        return maps.get(name);
+    }
+
+    @Override
+    public Long findVersion(String name) {
+        Map map = maps.get(name);
+        return (map == null) ? null : map.getVersion();
+    }
+
+    @Override
+    public Node findNode(String name, String nodeId) {
+        return nodesById.get(name + "/" + nodeId);
+    }
+
+    @Override
+    public List<Node> findSubtree(String name, String path, int depth) {
+        Map map = maps.get(name);
+        return (map == null) ? null : map.getNodes();
+    }
+
+    @Override
+    public synchronized Map findNodes(String name, Collection<String> paths) {
+        Map map = maps.get(name);
+        if (map == null) {
+            return null;
+        }
+        NodeIndex index = NodeIndex.of(map.getNodes());
+        List<Node> nodes = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            Node node = index.get(path);
+            if (node != null) {
+                nodes.add(node);
+            }
+        }
+        Map found = new Map();
+        found.setId(map.getId());
+        found.setName(name);
+        found.setNodes(nodes);
+        found.setVersion(map.getVersion());
+        return found;
+    }
+
+    @Override
+    public synchronized boolean insertNodes(String name, List<Node> nodes, long expectedVersion) {
+        Map map = maps.get(name);
+        if (map == null || map.getVersion() != expectedVersion) {
+            return false;
+        }
+        map.getNodes().addAll(nodes);
+        map.setVersion(map.getVersion() + 1);
+        indexIds(name, nodes);
+        return true;
+    }
+
+    private void indexIds(String name, List<Node> nodes) {
+        for (Node node : nodes) {
+            nodesById.putIfAbsent(name + "/" + node.getId(), node);
+        }
+    }
+}
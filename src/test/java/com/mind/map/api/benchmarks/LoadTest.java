@@ -0,0 +1,289 @@
+package com.mind.map.api.benchmarks;
+
+import com.mind.map.api.MindMapApi;
+import com.mind.map.api.domain.Leaf;
+import com.fasterxml.jackson.databind.JsonNode;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LoadTest {
+    private static final List<String> OPERATIONS = Arrays.asList("create", "write", "read", "pretty", "readLeaf");
+    private static final int SEED_BATCH = 1000;
+
+    private final WebClient client;
+    private final String map;
+    private final int concurrency;
+    private final List<String> maps = new ArrayList<>();
+    private final java.util.Map<String, List<String>> leafIds = new HashMap<>();
+    private final AtomicLong created = new AtomicLong();
+
+    LoadTest(String url, String map, int concurrency) {
+        ConnectionProvider connections = ConnectionProvider.builder("load-test")
+                .maxConnections(concurrency)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        this.client = WebClient.builder()
+                .baseUrl(url)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(-1))
+                .build();
+        this.map = map;
+        this.concurrency = concurrency;
+    }
+
+    public static void main(String[] args) {
+        java.util.Map<String, String> options = options(args);
+        Workload workload = Workload.parse(options.getOrDefault("workload", "read"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "256"));
+        int requests = Integer.parseInt(options.getOrDefault("requests", "20000"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "2000"));
+        int maps = Integer.parseInt(options.getOrDefault("maps", "1"));
+        int leaves = Integer.parseInt(options.getOrDefault("leaves", "10000"));
+
+        EmbeddedApi api = options.containsKey("url") ? null : new EmbeddedApi(options);
+        try {
+            String url = (api == null) ? options.get("url") : api.url();
+            LoadTest test = new LoadTest(url, options.getOrDefault("map", "load-test"), concurrency);
+            test.seed(maps, leaves);
+            test.run(workload, warmup);
+            Result result = test.run(workload, requests);
+            System.out.printf("url=%s workload=%s concurrency=%d maps=%d leaves=%d%n%s%n",
+                    (api == null) ? url : "embedded", workload, concurrency, maps, leaves, result);
+        } finally {
+            if (api != null) {
+                api.close();
+            }
+        }
+    }
+
+    void seed(int count, int leaves) {
+        for (int m = 0; m < count; m++) {
+            String name = (count == 1) ? map : map + "-" + m;
+            create(name).block();
+            List<String> ids = new ArrayList<>(leaves);
+            for (int start = 0; start < leaves; start += SEED_BATCH) {
+                List<Leaf> batch = new ArrayList<>(SEED_BATCH);
+                for (int i = start; i < Math.min(leaves, start + SEED_BATCH); i++) {
+                    batch.add(leaf(i));
+                }
+                JsonNode response = client.post().uri("/map/{map}/leaves", name)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(batch)
+                        .retrieve()
+                        .bodyToMono(JsonNode.class)
+                        .block();
+                response.get("ids").forEach(id -> ids.add(id.asText()));
+            }
+            maps.add(name);
+            leafIds.put(name, ids);
+        }
+    }
+
+    Result run(Workload workload, int requests) {
+        java.util.Map<String, Histogram> latencies = new LinkedHashMap<>();
+        for (String operation : workload.operations) {
+            latencies.put(operation, new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3));
+        }
+        AtomicLong errors = new AtomicLong();
+        long start = System.nanoTime();
+        Flux.range(0, requests)
+                .flatMap(i -> {
+                    String operation = workload.next();
+                    long sent = System.nanoTime();
+                    return request(operation)
+                            .doOnError(ex -> errors.incrementAndGet())
+                            .onErrorResume(ex -> Mono.empty())
+                            .doFinally(signal -> latencies.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sent)));
+                }, concurrency)
+                .blockLast();
+        return new Result(requests, errors.get(), Duration.ofNanos(System.nanoTime() - start), latencies);
+    }
+
+    private Mono<?> request(String operation) {
+        String map = maps.get(ThreadLocalRandom.current().nextInt(maps.size()));
+        switch (operation) {
+            case "create":
+                return create(this.map + "-created-" + created.incrementAndGet());
+            case "read":
+                return client.get().uri("/map/{map}", map).retrieve().bodyToMono(byte[].class);
+            case "pretty":
+                return client.get().uri("/map/{map}/pretty", map).retrieve().bodyToMono(byte[].class);
+            case "write":
+                return client.post().uri("/map/{map}/leaf", map)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(leaf(ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE)))
+                        .retrieve()
+                        .toBodilessEntity();
+            case "readLeaf":
+                List<String> ids = leafIds.get(map);
+                return client.get().uri("/map/{map}/leaf/{leafId}", map, ids.get(ThreadLocalRandom.current().nextInt(ids.size())))
+                        .retrieve()
+                        .bodyToMono(byte[].class);
+            default:
+                throw new IllegalArgumentException("Unknown workload " + operation);
+        }
+    }
+
+    private Mono<?> create(String name) {
+        return client.post().uri("/map")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Collections.singletonMap("id", name))
+                .exchangeToMono(response -> response.releaseBody());
+    }
+
+    private static Leaf leaf(int i) {
+        return Leaf.builder()
+                .path("branch" + (i % 100) + "/group" + (i % 10_000) + "/leaf" + i)
+                .text("text " + i)
+                .build();
+    }
+
+    private static java.util.Map<String, String> options(String[] args) {
+        java.util.Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        return options;
+    }
+
+    static class EmbeddedApi implements AutoCloseable {
+        private final MongoServer mongo;
+        private final ConfigurableApplicationContext context;
+
+        EmbeddedApi(java.util.Map<String, String> options) {
+            mongo = new MongoServer(new MemoryBackend());
+            InetSocketAddress address = mongo.bind();
+            List<String> args = new ArrayList<>();
+            args.add("--server.port=0");
+            args.add("--management.server.port=0");
+            args.add("--spring.data.mongodb.uri=mongodb://localhost:" + address.getPort() + "/mind-map");
+            options.forEach((key, value) -> {
+                if (key.startsWith("mindmap.") || key.startsWith("spring.")) {
+                    args.add("--" + key + "=" + value);
+                }
+            });
+            try {
+                context = new SpringApplicationBuilder(MindMapApi.class).run(args.toArray(new String[0]));
+            } catch (RuntimeException ex) {
+                mongo.shutdownNow();
+                throw ex;
+            }
+        }
+
+        String url() {
+            return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+
+        @Override
+        public void close() {
+            context.close();
+            mongo.shutdownNow();
+        }
+    }
+
+    static class Workload {
+        private final String description;
+        private final List<String> operations = new ArrayList<>();
+        private final List<Integer> weights = new ArrayList<>();
+        private int total;
+
+        private Workload(String description) {
+            this.description = description;
+        }
+
+        static Workload parse(String description) {
+            Workload workload = new Workload(description);
+            for (String part : description.split(",")) {
+                String[] ratio = part.trim().split(":");
+                if (!OPERATIONS.contains(ratio[0])) {
+                    throw new IllegalArgumentException("Unknown workload " + ratio[0]);
+                }
+                int weight = (ratio.length > 1) ? Integer.parseInt(ratio[1]) : 1;
+                if (weight > 0) {
+                    workload.total += weight;
+                    workload.operations.add(ratio[0]);
+                    workload.weights.add(workload.total);
+                }
+            }
+            if (workload.total == 0) {
+                throw new IllegalArgumentException("Empty workload " + description);
+            }
+            return workload;
+        }
+
+        String next() {
+            int pick = ThreadLocalRandom.current().nextInt(total);
+            int i = 0;
+            while (pick >= weights.get(i)) {
+                i++;
+            }
+            return operations.get(i);
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    static class Result {
+        private final int requests;
+        private final long errors;
+        private final Duration elapsed;
+        private final java.util.Map<String, Histogram> latencies;
+
+        Result(int requests, long errors, Duration elapsed, java.util.Map<String, Histogram> latencies) {
+            this.requests = requests;
+            this.errors = errors;
+            this.elapsed = elapsed;
+            this.latencies = latencies;
+        }
+
+        @Override
+        public String toString() {
+            Histogram all = new Histogram(TimeUnit.MINUTES.toMicros(1), 3);
+            latencies.values().forEach(all::add);
+            StringBuilder result = new StringBuilder(String.format("requests=%d errors=%d throughput=%.1f req/s %s",
+                    requests, errors, requests * 1e9 / elapsed.toNanos(), percentiles(all)));
+            if (latencies.size() > 1) {
+                latencies.forEach((operation, histogram) -> result.append(String.format("%n  %-8s requests=%d %s",
+                        operation, histogram.getTotalCount(), percentiles(histogram))));
+            }
+            return result.toString();
+        }
+
+        private static String percentiles(Histogram latencies) {
+            return String.format("p50=%.2f ms p99=%.2f ms p99.9=%.2f ms max=%.2f ms",
+                    latencies.getValueAtPercentile(50) / 1000.0,
+                    latencies.getValueAtPercentile(99) / 1000.0,
+                    latencies.getValueAtPercentile(99.9) / 1000.0,
+                    latencies.getMaxValue() / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.mind.map.api.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mind.map.api.domain.Map;
+import com.mind.map.api.ids.ObjectIdGenerator;
+import com.mind.map.api.services.Helper;
+import com.mind.map.api.services.MapCache;
+import com.mind.map.api.services.MapChangeLog;
+import com.mind.map.api.services.MapEvents;
+import com.mind.map.api.services.MapMetrics;
+import com.mind.map.api.services.MapNames;
+import com.mind.map.api.services.MapService;
+import com.mind.map.api.services.MapWriteQueue;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MapSerializationBenchmark {
+    @Param({"1000", "10000", "100000"})
+    int size;
+
+    @Param({"6"})
+    int depth;
+
+    @Param({"8"})
+    int fanOut;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final OutputStream discard = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+    private MapService service;
+    private MapService cachedService;
+
+    @Setup
+    public void setUp() {
+        Map map = new Map();
+        map.setName("benchmark");
+        map.setNodes(SyntheticMaps.nodes(size, depth, fanOut));
+        service = new MapService(new InMemoryMapStorage(map), new Helper(), mapper,
+                new MapCache(false, 0, Duration.ZERO, new SimpleMeterRegistry()), new MapWriteQueue(64, Duration.ZERO, 256), new ObjectIdGenerator(),
+                new MapMetrics(new SimpleMeterRegistry(), 100, false), new MapChangeLog(null, null, false, Duration.ZERO),
+                new MapEvents(mapper, 64, Duration.ZERO, 1), new MapNames(null, false, 0, 0.01, Duration.ZERO));
+        cachedService = new MapService(new InMemoryMapStorage(map), new Helper(), mapper,
+                new MapCache(true, Long.MAX_VALUE, Duration.ofHours(1), new SimpleMeterRegistry()), new MapWriteQueue(64, Duration.ZERO, 256), new ObjectIdGenerator(),
+                new MapMetrics(new SimpleMeterRegistry(), 100, false), new MapChangeLog(null, null, false, Duration.ZERO),
+                new MapEvents(mapper, 64, Duration.ZERO, 1), new MapNames(null, false, 0, 0.01, Duration.ZERO));
+    }
+
+    @Benchmark
+    public void serializeNodeResponseTree() throws IOException {
+        mapper.writeValue(discard, service.getMap("benchmark"));
+    }
+
+    @Benchmark
+    public void streamFromNodeTree() throws IOException {
+        service.streamMap("benchmark", 0).writeTo(discard);
+    }
+
+    @Benchmark
+    public void streamFromCachedTree() throws IOException {
+        cachedService.streamMap("benchmark", 0).writeTo(discard);
+    }
+}
@@ -0,0 +1,94 @@
+package com.mind.map.api.benchmarks;
+
+import com.mind.map.api.domain.AddLeafResponse;
+import com.mind.map.api.domain.Leaf;
+import com.mind.map.api.domain.Map;
+import com.mind.map.api.domain.Node;
+import com.mind.map.api.ids.ObjectIdGenerator;
+import com.mind.map.api.services.Helper;
+import com.mind.map.api.services.MapCache;
+import com.mind.map.api.services.MapChangeLog;
+import com.mind.map.api.services.MapEvents;
+import com.mind.map.api.services.MapMetrics;
+import com.mind.map.api.services.MapNames;
+import com.mind.map.api.services.MapService;
+import com.mind.map.api.services.MapWriteQueue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class MapServiceBenchmark {
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"6"})
+    int depth;
+
+    @Param({"8"})
+    int fanOut;
+
+    @Param({"false", "true"})
+    boolean cached;
+
+    private final AtomicLong leaves = new AtomicLong();
+    private List<Node> nodes;
+    private MapService service;
+
+    @Setup
+    public void setUp() {
+        nodes = SyntheticMaps.nodes(size, depth, fanOut);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetMap() {
+        Map map = new Map();
+        map.setName("benchmark");
+        map.setNodes(new ArrayList<>(nodes));
+        service = new MapService(new InMemoryMapStorage(map), new Helper(), new ObjectMapper(),
+                new MapCache(cached, Long.MAX_VALUE, Duration.ofHours(1), new SimpleMeterRegistry()),
+                new MapWriteQueue(64, Duration.ZERO, 256), new ObjectIdGenerator(), new MapMetrics(new SimpleMeterRegistry(), 100, false), new MapChangeLog(null, null, false, Duration.ZERO),
+                new MapEvents(new ObjectMapper(), 64, Duration.ZERO, 1), new MapNames(null, false, 0, 0.01, Duration.ZERO));
+        service.getMap("benchmark");
+    }
+
+    @Benchmark
+    public AddLeafResponse addLeaf() {
+        return service.addLeaf("benchmark", Leaf.builder()
+                .path(randomNode().getPath() + "/leaf" + leaves.incrementAndGet())
+                .text("text")
+                .build());
+    }
+
+    @Benchmark
+    public Leaf readLeaf() {
+        return service.readLeaf("benchmark", randomNode().getId());
+    }
+
+    private Node randomNode() {
+        return nodes.get(ThreadLocalRandom.current().nextInt(nodes.size()));
+    }
+}
@@ -0,0 +1,95 @@
+package com.mind.map.api.benchmarks;
+
+import com.mind.map.api.domain.Node;
+import com.mind.map.api.domain.NodeResponse;
+import com.mind.map.api.services.Helper;
+import com.mind.map.api.services.NodeIndex;
+import com.mind.map.api.services.NodeTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class NodeFootprintBenchmark {
+    @Param({"100000"})
+    int size;
+
+    @Param({"6"})
+    int depth;
+
+    @Param({"8"})
+    int fanOut;
+
+    private final Helper helper = new Helper();
+    private List<Node> nodes;
+    private NodeTree tree;
+
+    @Setup
+    public void setUp() {
+        nodes = SyntheticMaps.nodes(size, depth, fanOut);
+        tree = NodeTree.of(loaded(nodes));
+    }
+
+    @TearDown(Level.Trial)
+    public void printFootprint() {
+        long listBytes = GraphLayout.parseInstance(loaded(nodes)).totalSize();
+        long treeBytes = GraphLayout.parseInstance(NodeTree.of(loaded(nodes))).totalSize();
+        System.out.printf("%nList<Node> retained heap: %d bytes for %d nodes (%.1f bytes/node)%n",
+                listBytes, size, (double) listBytes / size);
+        System.out.printf("NodeTree retained heap: %d bytes for %d nodes (%.1f bytes/node)%n",
+                treeBytes, size, (double) treeBytes / size);
+    }
+
+    @Benchmark
+    public NodeTree assembleLoadedTree() {
+        return NodeTree.of(loaded(nodes));
+    }
+
+    @Benchmark
+    public NodeIndex indexLoadedMap() {
+        return NodeIndex.of(loaded(nodes));
+    }
+
+    @Benchmark
+    public NodeResponse readTree() {
+        NodeResponse root = NodeResponse.builder()
+                .nodes(new ArrayList<>())
+                .name("benchmark")
+                .build();
+        helper.addChildNodes(root, tree, "");
+        return root;
+    }
+
+    private static List<Node> loaded(List<Node> nodes) {
+        List<Node> copies = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            copies.add(Node.builder()
+                    .id(new String(node.getId()))
+                    .name(new String(node.getName()))
+                    .parentPath(new String(node.getParentPath()))
+                    .text(new String(node.getText()))
+                    .build());
+        }
+        return copies;
+    }
+}
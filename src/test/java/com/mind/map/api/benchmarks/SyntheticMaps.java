@@ -0,0 +1,39 @@
+package com.mind.map.api.benchmarks;
+
+import com.mind.map.api.domain.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+final class SyntheticMaps {
+
+    private SyntheticMaps() {
+    }
+
+    static List<Node> nodes(int size, int depth, int fanOut) {
+        List<Node> nodes = new ArrayList<>(size);
+        while (nodes.size() < size) {
+            addNode(nodes, "", 1, size, depth, fanOut);
+        }
+        return nodes;
+    }
+
+    private static void addNode(List<Node> nodes, String parentPath, int level, int size, int depth, int fanOut) {
+        int i = nodes.size();
+        Node node = Node.builder()
+                .id(UUID.randomUUID().toString())
+                .name("n" + i)
+                .parentPath(parentPath)
+                .text("text " + i)
+                .build();
+        nodes.add(node);
+        if (level >= depth) {
+            return;
+        }
+        String path = node.getPath();
+        for (int child = 0; child < fanOut && nodes.size() < size; child++) {
+            addNode(nodes, path, level + 1, size, depth, fanOut);
+        }
+    }
+}
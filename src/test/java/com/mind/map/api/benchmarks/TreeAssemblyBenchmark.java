@@ -0,0 +1,91 @@
+package com.mind.map.api.benchmarks;
+
+import com.mind.map.api.domain.Node;
+import com.mind.map.api.domain.NodeResponse;
+import com.mind.map.api.services.Helper;
+import com.mind.map.api.services.NodeTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class TreeAssemblyBenchmark {
+    @Param({"1000", "10000", "100000"})
+    int size;
+
+    @Param({"6"})
+    int depth;
+
+    @Param({"8"})
+    int fanOut;
+
+    private final Helper helper = new Helper();
+    private List<Node> nodes;
+
+    @Setup
+    public void setUp() {
+        nodes = SyntheticMaps.nodes(size, depth, fanOut);
+    }
+
+    @Benchmark
+    public NodeResponse groupedByParentPath() {
+        NodeResponse root = root();
+        helper.addChildNodes(root, NodeTree.of(nodes), "");
+        return root;
+    }
+
+    @Benchmark
+    public NodeResponse rescanPerNode() {
+        NodeResponse root = root();
+        rescanChildNodes(root, nodes, "");
+        return root;
+    }
+
+    private NodeResponse root() {
+        return NodeResponse.builder()
+                .nodes(new ArrayList<>())
+                .name("benchmark")
+                .build();
+    }
+
+    private void rescanChildNodes(NodeResponse nodeResponse, List<Node> mapNodes, String rootPath) {
+        java.util.Map<String, NodeResponse> nodeResponseMap = new TreeMap<>();
+        nodeResponse.setPath(rootPath);
+        for (Node node : mapNodes) {
+            if (node.getParentPath().equals(rootPath)) {
+                NodeResponse currentNodeResponse = nodeToNodeResponse(node);
+                nodeResponse.getNodes().add(currentNodeResponse);
+                nodeResponseMap.put(node.getPath(), currentNodeResponse);
+            }
+        }
+
+        nodeResponseMap.forEach((path, currentNodeResponse) -> rescanChildNodes(currentNodeResponse, mapNodes, path));
+    }
+
+    private NodeResponse nodeToNodeResponse(Node node) {
+        return NodeResponse.builder()
+                .path(node.getPath())
+                .text(node.getText())
+                .name(node.getName())
+                .nodes(new ArrayList<>())
+                .build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.mind.map.api.controllers;
+
+import com.mind.map.api.exceptions.NotFoundException;
+import com.mind.map.api.services.MapMetrics;
+import com.mind.map.api.services.MapService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = MapController.class, properties = "mindmap.read.streaming=true")
+class MapControllerStreamingTest {
+    @MockBean
+    MapService service;
+
+    @MockBean
+    MapMetrics metrics;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Given streaming reads, stream the map body")
+    void testGetMapStreaming() throws Exception {
+        String json = "{\"nodes\":[{\"path\":\"\",\"name\":\"my-map\",\"text\":null,\"nodes\":[]}]}";
+        when(service.streamMap(any(String.class), anyLong())).thenReturn(outputStream -> outputStream.write(json.getBytes(StandardCharsets.UTF_8)));
+
+        mockMvc.perform(get("/map/my-map"))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(content().contentType("application/json"))
+                .andExpect(content().string(json));
+    }
+
+    @Test
+    @DisplayName("Given streaming reads, answer 404 when the map was not found")
+    void testGetMapStreamingCaseMapNotFound() throws Exception {
+        when(service.getVersion(any(String.class))).thenThrow(NotFoundException.class);
+
+        mockMvc.perform(get("/map/my-map"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -2,13 +2,17 @@ package com.mind.map.api.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mind.map.api.domain.AddLeafResponse;
+import com.mind.map.api.domain.AddLeavesResponse;
 import com.mind.map.api.domain.CreateMapRequest;
 import com.mind.map.api.domain.Leaf;
 import com.mind.map.api.domain.Map;
+import com.mind.map.api.domain.MapChangesResponse;
+import com.mind.map.api.domain.Node;
 import com.mind.map.api.domain.NodeResponse;
 import com.mind.map.api.domain.ReadMapResponse;
 import com.mind.map.api.exceptions.AlreadyExistException;
 import com.mind.map.api.exceptions.NotFoundException;
+import com.mind.map.api.services.MapMetrics;
 import com.mind.map.api.services.MapService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -16,17 +20,32 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(MapController.class)
@@ -34,6 +53,9 @@ class MapControllerTest {
     @MockBean
     MapService service;
 
+    @MockBean
+    MapMetrics metrics;
+
     @Autowired
     MockMvc mockMvc;
 
@@ -96,17 +118,32 @@ class MapControllerTest {
         @DisplayName("Happy Path")
         void testGetMapHappyPath() throws Exception {
             ReadMapResponse response =  readMapResponse();
-            when(service.getMap(any(String.class))).thenReturn(response);
+            when(service.getVersion("my-map")).thenReturn(3L);
+            when(service.getMap("my-map", 3L)).thenReturn(response);
 
             mockMvc.perform(get("/map/my-map")
                     .contentType("application/json"))
-                    .andExpect(status().is2xxSuccessful());
+                    .andExpect(status().is2xxSuccessful())
+                    .andExpect(header().string("ETag", "\"3\""));
+        }
+
+        @Test
+        @DisplayName("Case map didn't change since the client's version, then answer 304 without reading it")
+        void testGetMapCaseNotModified() throws Exception {
+            when(service.getVersion("my-map")).thenReturn(3L);
+
+            mockMvc.perform(get("/map/my-map")
+                    .header("If-None-Match", "\"3\"")
+                    .contentType("application/json"))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().string(""));
+            verify(service, never()).getMap(any(String.class), anyLong());
         }
 
         @Test
         @DisplayName("Case map was not found")
         void testGetMapCaseMapNotFound() throws Exception {
-            when(service.getMap(any(String.class))).thenThrow(NotFoundException.class);
+            when(service.getVersion(any(String.class))).thenThrow(NotFoundException.class);
 
             mockMvc.perform(get("/map/my-map")
                     .contentType("application/json"))
@@ -114,6 +151,34 @@ class MapControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("Given a GetSubtree CMD")
+    class GetSubtree {
+        @Test
+        @DisplayName("Happy Path")
+        void testGetSubtreeHappyPath() throws Exception {
+            ReadMapResponse response =  readMapResponse();
+            when(service.getSubtree("my-map", "i/name2", 2, 0L)).thenReturn(response);
+
+            mockMvc.perform(get("/map/my-map/subtree")
+                    .param("path", "i/name2")
+                    .param("depth", "2")
+                    .contentType("application/json"))
+                    .andExpect(status().is2xxSuccessful())
+                    .andExpect(jsonPath("$.nodes[0].name").value("my-map"));
+            verify(metrics).stop(anyLong(), eq(MapMetrics.SERIALIZE), eq("getSubtree"));
+        }
+
+        @Test
+        @DisplayName("Case depth is negative")
+        void testGetSubtreeCaseNegativeDepth() throws Exception {
+            mockMvc.perform(get("/map/my-map/subtree")
+                    .param("depth", "-1")
+                    .contentType("application/json"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
     @Nested
     @DisplayName("Given a PrintMap CMD")
     class PrintMap {
@@ -121,17 +186,50 @@ class MapControllerTest {
         @DisplayName("Happy Path")
         void testGetMapHappyPath() throws Exception {
             String pretty = "root/\n\tname1/\n\tname2/\n\t\tname21/\n\t\tname22/\n";
-            when(service.printMap(any(String.class))).thenReturn(pretty);
+            when(service.printMap("my-map", "", Integer.MAX_VALUE, 0L))
+                    .thenReturn(outputStream -> outputStream.write(pretty.getBytes(StandardCharsets.UTF_8)));
 
-            mockMvc.perform(get("/map/my-map/pretty")
+            MvcResult result = mockMvc.perform(get("/map/my-map/pretty")
                     .contentType("application/json"))
-                    .andExpect(status().is2xxSuccessful());
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().is2xxSuccessful())
+                    .andExpect(content().contentType("text/plain;charset=UTF-8"))
+                    .andExpect(content().string(pretty));
+        }
+
+        @Test
+        @DisplayName("Given a path and a depth, print only that branch")
+        void testGetMapCasePathAndDepth() throws Exception {
+            String pretty = "i/name2/\n\tname21/\n\tname22/\n";
+            when(service.printMap("my-map", "i/name2", 1, 0L))
+                    .thenReturn(outputStream -> outputStream.write(pretty.getBytes(StandardCharsets.UTF_8)));
+
+            MvcResult result = mockMvc.perform(get("/map/my-map/pretty")
+                    .param("path", "i/name2")
+                    .param("depth", "1"))
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().is2xxSuccessful())
+                    .andExpect(content().string(pretty));
+        }
+
+        @Test
+        @DisplayName("Case map didn't change since the client's version, then answer 304 without rendering it")
+        void testGetMapCaseNotModified() throws Exception {
+            when(service.getVersion("my-map")).thenReturn(5L);
+
+            mockMvc.perform(get("/map/my-map/pretty")
+                    .header("If-None-Match", "\"5\""))
+                    .andExpect(status().isNotModified());
+            verify(service, never()).printMap(any(String.class), any(String.class), anyInt(), anyLong());
         }
 
         @Test
         @DisplayName("Case map was not found")
         void testGetMapCaseMapNotFound() throws Exception {
-            when(service.printMap(any(String.class))).thenThrow(NotFoundException.class);
+            when(service.getVersion(any(String.class))).thenThrow(NotFoundException.class);
 
             mockMvc.perform(get("/map/my-map/pretty")
                     .contentType("application/json"))
@@ -176,6 +274,64 @@ class MapControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("Given an AddLeaves CMD")
+    class AddLeaves {
+        @Test
+        @DisplayName("Given a JSON array, return the leaf ids in request order")
+        void testAddLeavesCaseJsonArray() throws Exception {
+            List<Leaf> request = Arrays.asList(
+                    Leaf.builder().path("i/like/fruits").text("text 1").build(),
+                    Leaf.builder().path("i/like/apples").text("text 2").build());
+            when(service.addLeaves(any(String.class), anyList()))
+                    .thenReturn(AddLeavesResponse.builder().ids(Arrays.asList("id-1", "id-2")).build());
+
+            mockMvc.perform(post("/map/my-map/leaves")
+                    .content(mapper.writeValueAsString(request))
+                    .contentType("application/json"))
+                    .andExpect(status().is2xxSuccessful())
+                    .andExpect(jsonPath("$.ids[0]").value("id-1"))
+                    .andExpect(jsonPath("$.ids[1]").value("id-2"));
+            verify(service).addLeaves("my-map", request);
+        }
+
+        @Test
+        @DisplayName("Given NDJSON, read one leaf per line")
+        void testAddLeavesCaseNdjson() throws Exception {
+            List<Leaf> request = Arrays.asList(
+                    Leaf.builder().path("i/like/fruits").text("text 1").build(),
+                    Leaf.builder().path("i/like/apples").text("text 2").build());
+            when(service.addLeaves(any(String.class), anyList()))
+                    .thenReturn(AddLeavesResponse.builder().ids(Arrays.asList("id-1", "id-2")).build());
+
+            mockMvc.perform(post("/map/my-map/leaves")
+                    .content(mapper.writeValueAsString(request.get(0)) + "\n" + mapper.writeValueAsString(request.get(1)) + "\n")
+                    .contentType("application/x-ndjson"))
+                    .andExpect(status().is2xxSuccessful())
+                    .andExpect(jsonPath("$.ids[1]").value("id-2"));
+            verify(service).addLeaves("my-map", request);
+        }
+
+        @Test
+        @DisplayName("Case a leaf has no path, then return bad request")
+        void testAddLeavesCaseInvalidLeaf() throws Exception {
+            mockMvc.perform(post("/map/my-map/leaves")
+                    .content("{\"text\":\"text\"}")
+                    .contentType("application/x-ndjson"))
+                    .andExpect(status().isBadRequest());
+            verify(service, never()).addLeaves(any(String.class), anyList());
+        }
+
+        @Test
+        @DisplayName("Case a NDJSON line is malformed, then return bad request")
+        void testAddLeavesCaseMalformedLine() throws Exception {
+            mockMvc.perform(post("/map/my-map/leaves")
+                    .content("{\"path\":\"i\",\"text\":\"text\"}\n{\"path\":")
+                    .contentType("application/x-ndjson"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
     @Nested
     @DisplayName("Given a ReadLeaf CMD")
     class ReadLeaf {
@@ -208,6 +364,74 @@ class MapControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("Given a GetChanges CMD")
+    class GetChanges {
+        @Test
+        @DisplayName("Happy path")
+        void testGetChangesHappyPath() throws Exception {
+            MapChangesResponse changes = MapChangesResponse.builder()
+                    .version(3)
+                    .nodes(Collections.singletonList(Node.builder().parentPath("i").name("name3").id("name3-id").build()))
+                    .build();
+            when(service.getChanges("my-map", 2)).thenReturn(changes);
+
+            mockMvc.perform(get("/map/my-map/changes?since=2"))
+                    .andExpect(status().is2xxSuccessful())
+                    .andExpect(jsonPath("$.version").value(3))
+                    .andExpect(jsonPath("$.resync").value(false))
+                    .andExpect(jsonPath("$.nodes[0].path").value("i/name3"));
+        }
+
+        @Test
+        @DisplayName("Case since is missing, then return 400")
+        void testGetChangesCaseSinceMissing() throws Exception {
+            mockMvc.perform(get("/map/my-map/changes"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a GetEvents CMD")
+    class GetEvents {
+        @Test
+        @DisplayName("Happy path")
+        void testGetEventsHappyPath() throws Exception {
+            SseEmitter emitter = new SseEmitter();
+            when(service.subscribe("my-map", 2L)).thenReturn(emitter);
+
+            MvcResult result = mockMvc.perform(get("/map/my-map/events?since=2"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            emitter.send(SseEmitter.event().id("3").name("changes").data("{\"version\":3}", MediaType.APPLICATION_JSON));
+            emitter.complete();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().is2xxSuccessful())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                    .andExpect(content().string("id:3\nevent:changes\ndata:{\"version\":3}\n\n"));
+        }
+
+        @Test
+        @DisplayName("Case the client reconnects, then resume from the Last-Event-ID header")
+        void testGetEventsCaseLastEventId() throws Exception {
+            when(service.subscribe("my-map", 5L)).thenReturn(new SseEmitter());
+
+            mockMvc.perform(get("/map/my-map/events?since=2").header("Last-Event-ID", "5"))
+                    .andExpect(request().asyncStarted());
+            verify(service).subscribe("my-map", 5L);
+        }
+
+        @Test
+        @DisplayName("Case map doesn't exist, then return 404")
+        void testGetEventsCaseMapDoNotExist() throws Exception {
+            when(service.subscribe("my-map", null)).thenThrow(new NotFoundException("Unable to find a map with name=my-map"));
+
+            mockMvc.perform(get("/map/my-map/events").accept(MediaType.TEXT_EVENT_STREAM))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
     private CreateMapRequest createMapRequest() {
         CreateMapRequest request = new CreateMapRequest();
         request.setId("my-map");
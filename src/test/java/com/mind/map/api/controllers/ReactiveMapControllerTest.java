@@ -0,0 +1,120 @@
+package com.mind.map.api.controllers;
+
+import com.mind.map.api.domain.AddLeavesResponse;
+import com.mind.map.api.domain.Leaf;
+import com.mind.map.api.exceptions.NotFoundException;
+import com.mind.map.api.services.ReactiveMapService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(ReactiveMapController.class)
+class ReactiveMapControllerTest {
+    @MockBean
+    ReactiveMapService service;
+
+    @Autowired
+    WebTestClient client;
+
+    @Nested
+    @DisplayName("Given a GetMap CMD")
+    class GetMap {
+        @Test
+        @DisplayName("Happy path, stream the map with its ETag")
+        void testGetMapHappyPath() {
+            String json = "{\"nodes\":[{\"path\":\"\",\"name\":\"my-map\",\"text\":null,\"nodes\":[]}]}";
+            when(service.getVersion("my-map")).thenReturn(Mono.just(3L));
+            when(service.streamMap("my-map", 3L)).thenReturn(Flux.just(
+                    DefaultDataBufferFactory.sharedInstance.wrap(json.getBytes(StandardCharsets.UTF_8))));
+
+            client.get().uri("/map/my-map")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().valueEquals("ETag", "\"3\"")
+                    .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                    .expectBody(String.class).isEqualTo(json);
+        }
+
+        @Test
+        @DisplayName("Case the ETag matches, then answer 304 without reading the map")
+        void testGetMapCaseNotModified() {
+            when(service.getVersion("my-map")).thenReturn(Mono.just(3L));
+
+            client.get().uri("/map/my-map")
+                    .header("If-None-Match", "\"3\"")
+                    .exchange()
+                    .expectStatus().isNotModified();
+            verify(service, never()).streamMap(any(String.class), anyLong());
+        }
+
+        @Test
+        @DisplayName("Case map doesn't exist, then answer 404")
+        void testGetMapCaseMapNotFound() {
+            when(service.getVersion("my-map")).thenReturn(Mono.error(new NotFoundException("Unable to find a map with name=my-map")));
+
+            client.get().uri("/map/my-map")
+                    .exchange()
+                    .expectStatus().isNotFound()
+                    .expectBody().jsonPath("$.message").isEqualTo("Unable to find a map with name=my-map");
+        }
+
+        @Test
+        @DisplayName("Case depth is negative, then answer 400")
+        void testGetSubtreeCaseNegativeDepth() {
+            client.get().uri("/map/my-map/subtree?depth=-1")
+                    .exchange()
+                    .expectStatus().isBadRequest();
+        }
+    }
+
+    @Nested
+    @DisplayName("Given an AddLeaves CMD")
+    class AddLeaves {
+        @Test
+        @DisplayName("Given NDJSON, read one leaf per line")
+        void testAddLeavesCaseNdjson() {
+            when(service.addLeaves(eq("my-map"), anyList()))
+                    .thenReturn(Mono.just(AddLeavesResponse.builder().ids(Arrays.asList("id-1", "id-2")).build()));
+
+            client.post().uri("/map/my-map/leaves")
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .bodyValue("{\"path\":\"i/like\",\"text\":\"text 1\"}\n{\"path\":\"i/know\",\"text\":\"text 2\"}\n")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody().jsonPath("$.ids[1]").isEqualTo("id-2");
+            verify(service).addLeaves("my-map", Arrays.asList(
+                    Leaf.builder().path("i/like").text("text 1").build(),
+                    Leaf.builder().path("i/know").text("text 2").build()));
+        }
+
+        @Test
+        @DisplayName("Case a leaf has no path, then answer 400")
+        void testAddLeavesCaseInvalidLeaf() {
+            client.post().uri("/map/my-map/leaves")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue("[{\"text\":\"text\"}]")
+                    .exchange()
+                    .expectStatus().isBadRequest();
+            verify(service, never()).addLeaves(any(String.class), anyList());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.mind.map.api.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mind.map.api.services.MapMetrics;
+import com.mind.map.api.services.RequestTiming;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServerTimingFilterTest {
+    private final ServerTimingFilter filter = new ServerTimingFilter(Duration.ofMillis(500));
+
+    @Nested
+    @DisplayName("Given a request")
+    class Request {
+        @Test
+        @DisplayName("Case the body is written, then send the stages recorded before it in the Server-Timing header")
+        void testFilterCaseBody() throws Exception {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            filter.doFilter(new MockHttpServletRequest("GET", "/map/my-map"), response, (req, res) -> {
+                RequestTiming.current().add(MapMetrics.FETCH, TimeUnit.MICROSECONDS.toNanos(1500));
+                res.getOutputStream().write('{');
+                RequestTiming.current().add(MapMetrics.SERIALIZE, TimeUnit.MILLISECONDS.toNanos(3));
+            });
+            String header = response.getHeader(ServerTimingFilter.SERVER_TIMING);
+            assertEquals("fetch;dur=1.5, app;dur=", header.substring(0, header.lastIndexOf('=') + 1));
+            assertNull(RequestTiming.current());
+        }
+
+        @Test
+        @DisplayName("Case there is no body, then still send the Server-Timing header")
+        void testFilterCaseNoBody() throws Exception {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            filter.doFilter(new MockHttpServletRequest("GET", "/map/my-map"), response, (req, res) ->
+                    RequestTiming.current().add(MapMetrics.FETCH, TimeUnit.MILLISECONDS.toNanos(2)));
+            assertEquals(1, response.getHeaders(ServerTimingFilter.SERVER_TIMING).size());
+            assertEquals("fetch;dur=2.0, ", response.getHeader(ServerTimingFilter.SERVER_TIMING).substring(0, 15));
+        }
+    }
+
+    @Nested
+    @DisplayName("Given an async request")
+    @ExtendWith(OutputCaptureExtension.class)
+    class AsyncRequest {
+        @Test
+        @DisplayName("Case the body is written on another thread, then log its stages once the request completes")
+        void testFilterCaseAsync(CapturedOutput output) throws Exception {
+            ServerTimingFilter filter = new ServerTimingFilter(Duration.ZERO);
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/map/my-map/pretty");
+            request.setAsyncSupported(true);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            filter.doFilter(request, response, (req, res) -> req.startAsync());
+            assertFalse(output.getOut().contains("Slow request"));
+
+            Thread render = new Thread(() -> {
+                new MapWebConfig.RequestTimingInterceptor().preProcess(new ServletWebRequest(request), null);
+                RequestTiming.current().add(MapMetrics.RENDER, TimeUnit.MILLISECONDS.toNanos(7));
+                new MapWebConfig.RequestTimingInterceptor().postProcess(new ServletWebRequest(request), null, null);
+            });
+            render.start();
+            render.join();
+            request.getAsyncContext().complete();
+
+            assertTrue(output.getOut().contains("uri=/map/my-map/pretty status=200 total="));
+            assertTrue(output.getOut().contains(" render=7.0ms"));
+        }
+
+        @Test
+        @DisplayName("Case stages are recorded from several threads, then keep every duration")
+        void testTimingCaseConcurrentStages() throws Exception {
+            RequestTiming timing = RequestTiming.start();
+            timing.end();
+            CountDownLatch start = new CountDownLatch(1);
+            Thread[] threads = new Thread[4];
+            for (int i = 0; i < threads.length; i++) {
+                threads[i] = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < 100000; j++) {
+                        timing.add(MapMetrics.FETCH, 1);
+                    }
+                });
+                threads[i].start();
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(400000, timing.stage(MapMetrics.FETCH));
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a JSON body")
+    class JsonBody {
+        @Test
+        @DisplayName("Case the request is timed, then record the Jackson serialization as the serialize stage")
+        void testConverterCaseTimed() throws Exception {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            RequestTiming timing = RequestTiming.start();
+            try {
+                MockHttpOutputMessage message = new MockHttpOutputMessage();
+                new TimedJsonHttpMessageConverter(new ObjectMapper(), new MapMetrics(registry, 100, true))
+                        .write(Collections.singletonMap("name", "my-map"), MediaType.APPLICATION_JSON, message);
+
+                assertEquals("{\"name\":\"my-map\"}", message.getBodyAsString());
+                assertTrue(timing.stage(MapMetrics.SERIALIZE) > 0);
+                assertEquals(1, registry.get("mindmap.stage").tag("stage", MapMetrics.SERIALIZE)
+                        .tag("endpoint", TimedJsonHttpMessageConverter.OTHER_ENDPOINT).timer().count());
+            } finally {
+                timing.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.mind.map.api.ids;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ObjectIdGeneratorTest {
+    private final ObjectIdGenerator idGenerator = new ObjectIdGenerator();
+
+    @Test
+    @DisplayName("Generate 24 hex characters ids in increasing order")
+    void testNextId() {
+        String first = idGenerator.nextId();
+        String second = idGenerator.nextId();
+
+        assertTrue(first.matches("[0-9a-f]{24}"));
+        assertTrue(first.compareTo(second) < 0);
+    }
+}
@@ -0,0 +1,52 @@
+package com.mind.map.api.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Nested
+    @DisplayName("Given a mightContain CMD")
+    class MightContain {
+        @Test
+        @DisplayName("Case the value was added, then always answer true")
+        void testMightContainCaseAdded() {
+            BloomFilter filter = new BloomFilter(10_000, 0.01);
+            for (int i = 0; i < 10_000; i++) {
+                filter.put("map-" + i);
+            }
+            for (int i = 0; i < 10_000; i++) {
+                assertTrue(filter.mightContain("map-" + i));
+            }
+        }
+
+        @Test
+        @DisplayName("Case the value was never added, then answer false for nearly all of them")
+        void testMightContainCaseMissing() {
+            BloomFilter filter = new BloomFilter(10_000, 0.01);
+            for (int i = 0; i < 10_000; i++) {
+                filter.put("map-" + i);
+            }
+            int falsePositives = 0;
+            for (int i = 0; i < 100_000; i++) {
+                if (filter.mightContain("unknown-" + i)) {
+                    falsePositives++;
+                }
+            }
+            assertTrue(falsePositives < 2_000, "false positives " + falsePositives);
+        }
+
+        @Test
+        @DisplayName("Case the filter is empty, then answer false")
+        void testMightContainCaseEmpty() {
+            BloomFilter filter = new BloomFilter(1_000_000, 0.01);
+            assertFalse(filter.mightContain("my-map"));
+            assertEquals(7, filter.hashCount());
+        }
+    }
+}
@@ -6,8 +6,10 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
@@ -20,13 +22,28 @@ class HelperTest {
     @DisplayName("Given a PrintChildNodes CMD")
     class PrintChildNodes {
         @Test
-        @DisplayName("Given a Map, pretty print the whole tree of the map")
-        void testPrintChildNodes() {
-            List<NodeResponse> nodeResponses = nodeResponses();
-            StringBuilder pretty = new StringBuilder();
-            pretty.append("root/\n");
-            helper.printChildNodes(pretty, nodeResponses, 0);
-            assertEquals("root/\n\tname1/\n\tname2/\n\t\tname21/\n\t\tname22/\n", pretty.toString());
+        @DisplayName("Given a NodeTree, write the tree to the writer")
+        void testPrintNodes() throws IOException {
+            StringWriter pretty = new StringWriter();
+            helper.printNodes(pretty, NodeTree.of(mapNodes()), "", Integer.MAX_VALUE);
+            assertEquals("root/\n\ti/\n\t\tname1/\n\t\tname2/\n\t\t\tname21/\n\t\t\tname22/\n", pretty.toString());
+        }
+
+        @Test
+        @DisplayName("Given a tree deeper than the cached indentation, keep indenting")
+        void testPrintNodesCaseDeepTree() throws IOException {
+            List<Node> nodes = new ArrayList<>();
+            String parentPath = "";
+            for (int i = 0; i < 40; i++) {
+                Node node = Node.builder().parentPath(parentPath).name("n" + i).build();
+                nodes.add(node);
+                parentPath = node.getPath();
+            }
+            StringWriter pretty = new StringWriter();
+            helper.printNodes(pretty, NodeTree.of(nodes), "", Integer.MAX_VALUE);
+            String[] lines = pretty.toString().split("\n");
+            assertEquals(41, lines.length);
+            assertEquals(40, lines[40].indexOf("n39/"));
         }
     }
 
@@ -42,7 +59,7 @@ class HelperTest {
                                         .name("my-map")
                                         .build();
             String rootPath = "";
-            helper.addChildNodes(nodeResponse, mapNodes, rootPath);
+            helper.addChildNodes(nodeResponse, NodeTree.of(mapNodes), rootPath);
             System.out.println(nodeResponse);
             assertEquals("my-map", nodeResponse.getName());
             assertEquals(1, nodeResponse.getNodes().size());
@@ -56,68 +73,38 @@ class HelperTest {
             assertEquals("name21", root.getNodes().get(1).getNodes().get(0).getName());
             assertEquals("i/name2/name22", root.getNodes().get(1).getNodes().get(1).getPath());
         }
-    }
 
-    @Nested
-    @DisplayName("GIVEN a NodeToNodeResponse CMD")
-    class NodeToNodeResponse {
         @Test
-        @DisplayName("Test convert Node to NodeResponse")
-        void testNodeToNodeResponse() {
-            Node node = Node.builder()
-                    .id("e7bfca6d-6067-46f9-bdfb-0aca01fa6476")
-                    .name("my-node")
-                    .parentPath("root")
-                    .text("text1")
-                    .build();
-
-            NodeResponse response = helper.nodeToNodeResponse(node);
-            assertEquals("my-node", response.getName());
-            assertEquals("text1", response.getText());
-            assertEquals("root/my-node", response.getPath());
-            assertEquals(0, response.getNodes().size());
-        }
-    }
+        @DisplayName("Given child Nodes listed before their parent, keep siblings in list order")
+        void addChildNodesCaseChildrenBeforeParent() {
+            List<Node> mapNodes = mapNodes();
+            Collections.reverse(mapNodes);
+            NodeResponse nodeResponse = NodeResponse.builder()
+                                        .nodes(new ArrayList<>())
+                                        .name("my-map")
+                                        .build();
+            helper.addChildNodes(nodeResponse, NodeTree.of(mapNodes), "");
 
-    @Nested
-    @DisplayName("Given a CreateIfNotExistNode CMD")
-    class CreateIfNotExistNode {
-        @Test
-        @DisplayName("Create node case Node already exist, then it's not added")
-        void testCreateIfNotExistNodeCaseNodeExist() {
-            List<Node> nodes = mapNodes();
-            String parentPath = "/";
-            String path = "i";
-            String id = UUID.randomUUID().toString();
-            helper.createIfNotExistNode(nodes, parentPath, path, id, "");
-            assertEquals(5, nodes.size());
-            assertEquals("i", nodes.get(0).getName());
+            NodeResponse root = nodeResponse.getNodes().get(0);
+            assertEquals("i", root.getPath());
+            assertEquals("name2", root.getNodes().get(0).getName());
+            assertEquals("name1", root.getNodes().get(1).getName());
+            assertEquals("name22", root.getNodes().get(0).getNodes().get(0).getName());
+            assertEquals("name21", root.getNodes().get(0).getNodes().get(1).getName());
         }
 
         @Test
-        @DisplayName("Create node case Node doesn't exist, then it's  added")
-        void testCreateIfNotExistNodeCaseNodeDoNotExist_1() {
-            List<Node> nodes = mapNodes();
-            String parentPath = "/";
-            String path = "u";
-            String id = UUID.randomUUID().toString();
-            helper.createIfNotExistNode(nodes, parentPath, path, id, "");
-            assertEquals(6, nodes.size());
-            assertEquals("u", nodes.get(5).getName());
-        }
+        @DisplayName("Given a depth limit, stop adding nodes below that depth")
+        void addChildNodesCaseDepthLimit() {
+            NodeResponse nodeResponse = NodeResponse.builder()
+                                        .nodes(new ArrayList<>())
+                                        .name("i")
+                                        .build();
+            helper.addChildNodes(nodeResponse, NodeTree.of(mapNodes()), "i", 1);
 
-        @Test
-        @DisplayName("Create node case Node doesn't exist, then it's  added")
-        void testCreateIfNotExistNodeCaseNodeDoNotExist_2() {
-            List<Node> nodes = mapNodes();
-            String parentPath = "/i/name1/";
-            String path = "name11";
-            String id = UUID.randomUUID().toString();
-            helper.createIfNotExistNode(nodes, parentPath, path, id, "text text");
-            System.out.println(nodes);
-            assertEquals(6, nodes.size());
-            assertEquals("name11", nodes.get(5).getName());
-            assertEquals("text text", nodes.get(5).getText());
+            assertEquals(2, nodeResponse.getNodes().size());
+            assertEquals("i/name2", nodeResponse.getNodes().get(1).getPath());
+            assertEquals(0, nodeResponse.getNodes().get(1).getNodes().size());
         }
     }
 
@@ -179,35 +166,4 @@ class HelperTest {
 
         return nodes;
     }
-    private List<NodeResponse> nodeResponses() {
-        List<NodeResponse> nodeResponses = new ArrayList<>();
-        NodeResponse nodeResponse1 = NodeResponse.builder()
-                .name("name1")
-                .path("i/name1")
-                .nodes(new ArrayList<>())
-                .build();
-
-        NodeResponse nodeResponse21 = NodeResponse.builder()
-                .name("name21")
-                .path("i/name2/n1")
-                .text("reason21")
-                .nodes(new ArrayList<>())
-                .build();
-        NodeResponse nodeResponse22 = NodeResponse.builder()
-                .name("name22")
-                .path("i/name2/n2")
-                .text("reason22")
-                .nodes(new ArrayList<>())
-                .build();
-        NodeResponse nodeResponse2 = NodeResponse.builder()
-                .name("name2")
-                .path("i/name2")
-                .nodes(Arrays.asList(nodeResponse21,nodeResponse22))
-                .build();
-
-        nodeResponses.add(nodeResponse1);
-        nodeResponses.add(nodeResponse2);
-
-        return nodeResponses;
-    }
-}
\ No newline at end of file
+}
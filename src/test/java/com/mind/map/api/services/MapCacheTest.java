@@ -0,0 +1,164 @@
+package com.mind.map.api.services;
+
+import com.mind.map.api.domain.Node;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MapCacheTest {
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Nested
+    @DisplayName("Given a get CMD")
+    class Get {
+        @Test
+        @DisplayName("Case tree is cached, then do not load it again and count the hit")
+        void testGetCaseCached() {
+            MapCache cache = new MapCache(true, 1 << 20, Duration.ofMinutes(1), registry);
+            AtomicInteger loads = new AtomicInteger();
+            NodeTree tree = tree();
+
+            cache.get("my-map", 0, name -> { loads.incrementAndGet(); return tree; });
+            assertSame(tree, cache.get("my-map", 0, name -> { loads.incrementAndGet(); return tree(); }));
+            assertEquals(1, loads.get());
+            assertEquals(1.0, registry.get("cache.gets").tag("cache", "mindmap.trees").tag("result", "hit").functionCounter().count());
+        }
+
+        @Test
+        @DisplayName("Case map doesn't exist, then do not cache the miss")
+        void testGetCaseMapDoNotExist() {
+            MapCache cache = new MapCache(true, 1 << 20, Duration.ofMinutes(1), registry);
+
+            assertNull(cache.get("my-map", 0, name -> null));
+            assertNull(cache.getIfPresent("my-map"));
+        }
+
+        @Test
+        @DisplayName("Case cached tree is older than the requested version, then load it again")
+        void testGetCaseStaleVersion() {
+            MapCache cache = new MapCache(true, 1 << 20, Duration.ofMinutes(1), registry);
+            cache.put("my-map", tree());
+            NodeTree tree = NodeTree.of(Collections.emptyList(), 1);
+
+            assertSame(tree, cache.get("my-map", 1, name -> tree));
+            assertSame(tree, cache.getIfPresent("my-map", 1));
+        }
+
+        @Test
+        @DisplayName("Case several threads miss the same map, then load it once")
+        void testGetCaseConcurrentMisses() throws Exception {
+            MapCache cache = new MapCache(true, 1 << 20, Duration.ofMinutes(1), registry);
+            AtomicInteger loads = new AtomicInteger();
+            CountDownLatch loading = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            NodeTree tree = tree();
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<NodeTree>> reads = new ArrayList<>();
+                reads.add(executor.submit(() -> cache.get("my-map", 0, name -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    await(release);
+                    return tree;
+                })));
+                loading.await();
+                for (int i = 0; i < 3; i++) {
+                    reads.add(executor.submit(() -> cache.get("my-map", 0, name -> { loads.incrementAndGet(); return tree(); })));
+                }
+                Thread.sleep(100);
+                release.countDown();
+
+                for (Future<NodeTree> read : reads) {
+                    assertSame(tree, read.get(5, TimeUnit.SECONDS));
+                }
+                assertEquals(1, loads.get());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("Case cache is disabled, then always load")
+        void testGetCaseDisabled() {
+            MapCache cache = new MapCache(false, 1 << 20, Duration.ofMinutes(1), registry);
+            AtomicInteger loads = new AtomicInteger();
+
+            cache.get("my-map", 0, name -> { loads.incrementAndGet(); return tree(); });
+            cache.get("my-map", 0, name -> { loads.incrementAndGet(); return tree(); });
+            assertEquals(2, loads.get());
+            assertNull(cache.getIfPresent("my-map"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Given an invalidate CMD")
+    class Invalidate {
+        @Test
+        @DisplayName("Drop the cached tree of the map")
+        void testInvalidate() {
+            MapCache cache = new MapCache(true, 1 << 20, Duration.ofMinutes(1), registry);
+            cache.get("my-map", 0, name -> tree());
+
+            cache.invalidate("my-map");
+            assertNull(cache.getIfPresent("my-map"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a patch CMD")
+    class Patch {
+        @Test
+        @DisplayName("Case cached tree is at the written version, then append the nodes")
+        void testPatchCaseSameVersion() {
+            MapCache cache = new MapCache(true, 1 << 20, Duration.ofMinutes(1), registry);
+            cache.get("my-map", 0, name -> tree());
+
+            cache.patch("my-map", 0, Collections.singletonList(Node.builder().parentPath("i").name("like").id("like-id").build()), 1);
+            NodeTree tree = cache.getIfPresent("my-map", 1);
+            assertEquals("i/like", tree.path(tree.findById("like-id")));
+        }
+
+        @Test
+        @DisplayName("Case cached tree is at another version, then drop it")
+        void testPatchCaseOtherVersion() {
+            MapCache cache = new MapCache(true, 1 << 20, Duration.ofMinutes(1), registry);
+            cache.get("my-map", 0, name -> tree());
+
+            cache.patch("my-map", 1, Collections.singletonList(Node.builder().parentPath("i").name("like").id("like-id").build()), 2);
+            assertNull(cache.getIfPresent("my-map"));
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private NodeTree tree() {
+        return NodeTree.of(Collections.singletonList(Node.builder()
+                .id("e7bfca6d-6067-46f9-bdfb-0aca01fa6476")
+                .parentPath("")
+                .name("i")
+                .build()));
+    }
+}
@@ -0,0 +1,147 @@
+package com.mind.map.api.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mind.map.api.domain.MapChangesResponse;
+import com.mind.map.api.domain.Node;
+import com.mind.map.api.exceptions.NotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MapEventsTest {
+    private final CountDownLatch blocked = new CountDownLatch(1);
+    private final BlockingQueue<RecordingEmitter> emitters = new LinkedBlockingQueue<>();
+    private boolean slow;
+
+    private final MapEvents events = new MapEvents(new ObjectMapper(), 2, Duration.ofMinutes(1), 2) {
+        @Override
+        SseEmitter emitter(long timeoutMillis) {
+            RecordingEmitter emitter = new RecordingEmitter(slow ? blocked : null);
+            emitters.add(emitter);
+            return emitter;
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        blocked.countDown();
+        events.close();
+    }
+
+    @Nested
+    @DisplayName("Given a publish CMD")
+    class Publish {
+        @Test
+        @DisplayName("Case the map has subscribers, then send the initial event followed by every newer change")
+        void testPublishCaseSubscribed() throws Exception {
+            SseEmitter emitter = events.subscribe("my-map", () -> changes(3));
+            events.publish("my-map", 2, nodes("name2"));
+            events.publish("my-map", 4, nodes("name4"));
+
+            RecordingEmitter recording = (RecordingEmitter) emitter;
+            assertTrue(recording.next().startsWith("id:3\nevent:changes\ndata:{\"version\":3,"));
+            String next = recording.next();
+            assertTrue(next.startsWith("id:4\n"));
+            assertTrue(next.contains("\"path\":\"i/name4\""));
+            assertNull(recording.sent.poll(100, TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        @DisplayName("Case a subscriber falls behind its buffer, then drop it without holding back the others")
+        void testPublishCaseSlowSubscriber() throws Exception {
+            slow = true;
+            RecordingEmitter slowEmitter = (RecordingEmitter) events.subscribe("my-map", () -> changes(0));
+            slow = false;
+            RecordingEmitter fastEmitter = (RecordingEmitter) events.subscribe("my-map", () -> changes(0));
+
+            assertTrue(fastEmitter.next().startsWith("id:0\n"));
+            for (int version = 1; version <= 3; version++) {
+                events.publish("my-map", version, nodes("name" + version));
+                assertTrue(fastEmitter.next().startsWith("id:" + version + "\n"));
+            }
+
+            assertTrue(slowEmitter.completed);
+            assertEquals(1, events.subscribers("my-map"));
+        }
+
+        @Test
+        @DisplayName("Case the map has no subscribers, then do nothing")
+        void testPublishCaseNoSubscribers() {
+            events.publish("my-map", 1, nodes("name1"));
+            assertEquals(0, events.subscribers("my-map"));
+            assertTrue(emitters.isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a subscribe CMD")
+    class Subscribe {
+        @Test
+        @DisplayName("Case map doesn't exist, then throw NotFoundException and keep no subscriber")
+        void testSubscribeCaseMapDoNotExist() {
+            assertThrows(NotFoundException.class, () -> events.subscribe("my-map", () -> {
+                throw new NotFoundException("Unable to find a map with name=my-map");
+            }));
+            assertEquals(0, events.subscribers("my-map"));
+        }
+    }
+
+    private static MapChangesResponse changes(long version) {
+        return MapChangesResponse.builder().version(version).nodes(Collections.emptyList()).build();
+    }
+
+    private static List<Node> nodes(String name) {
+        return Collections.singletonList(Node.builder().parentPath("i").name(name).id(name + "-id").build());
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final CountDownLatch blocked;
+        private final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+        private volatile boolean completed;
+
+        RecordingEmitter(CountDownLatch blocked) {
+            this.blocked = blocked;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            if (blocked != null) {
+                try {
+                    blocked.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            Set<DataWithMediaType> data = builder.build();
+            sent.add(data.stream().map(part -> part.getData().toString()).collect(Collectors.joining()));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        String next() throws InterruptedException {
+            String event = sent.poll(5, TimeUnit.SECONDS);
+            assertTrue(event != null, "no event was sent");
+            return event;
+        }
+    }
+}
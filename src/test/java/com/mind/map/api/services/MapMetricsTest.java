@@ -0,0 +1,143 @@
+package com.mind.map.api.services;
+
+import com.mind.map.api.domain.Node;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MapMetricsTest {
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Nested
+    @DisplayName("Given a time CMD")
+    class Time {
+        @Test
+        @DisplayName("Record the stage under the endpoint and return the result")
+        void testTime() {
+            MapMetrics metrics = new MapMetrics(registry, 10, false);
+
+            assertEquals("result", metrics.time(MapMetrics.FETCH, "getMap", () -> "result"));
+            assertEquals(1, registry.get("mindmap.stage").tag("stage", "fetch").tag("endpoint", "getMap").timer().count());
+        }
+
+        @Test
+        @DisplayName("Case request timing is enabled, then add the stage to the timing of the current request")
+        void testTimeCaseRequestTiming() {
+            MapMetrics metrics = new MapMetrics(registry, 10, true);
+            RequestTiming timing = RequestTiming.start();
+            try {
+                metrics.time(MapMetrics.FETCH, "getMap", () -> "result");
+            } finally {
+                timing.end();
+            }
+            assertTrue(timing.stage(MapMetrics.FETCH) > 0);
+            assertEquals(0, timing.stage(MapMetrics.SAVE));
+        }
+
+        @Test
+        @DisplayName("Case request timing is disabled, then leave the timing of the current request alone")
+        void testTimeCaseRequestTimingDisabled() {
+            MapMetrics metrics = new MapMetrics(registry, 10, false);
+            RequestTiming timing = RequestTiming.start();
+            try {
+                metrics.time(MapMetrics.FETCH, "getMap", () -> "result");
+            } finally {
+                timing.end();
+            }
+            assertEquals(0, timing.stage(MapMetrics.FETCH));
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a mapLoaded CMD")
+    class MapLoaded {
+        @Test
+        @DisplayName("Publish the node count and the document size of the map, and grow them when nodes are added")
+        void testMapLoaded() {
+            MapMetrics metrics = new MapMetrics(registry, 10, false);
+            List<Node> nodes = new ArrayList<>(Arrays.asList(node("", "i"), node("i", "name1")));
+
+            metrics.mapLoaded("my-map", nodes);
+            assertEquals(2, registry.get("mindmap.map.nodes").tag("map", "my-map").gauge().value());
+
+            Node added = node("i", "name2");
+            nodes.add(added);
+            metrics.mapGrown("my-map", Collections.singletonList(added));
+            assertEquals(3, registry.get("mindmap.map.nodes").tag("map", "my-map").gauge().value());
+            assertEquals(MapMetrics.documentBytes(nodes), registry.get("mindmap.map.document.size").tag("map", "my-map").gauge().value());
+        }
+
+        @Test
+        @DisplayName("Case the added nodes get longer indexes than the loaded ones, then size them at their position in the map")
+        void testMapLoadedCaseGrownPastTenNodes() {
+            MapMetrics metrics = new MapMetrics(registry, 10, false);
+            List<Node> nodes = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                nodes.add(node("i", "name" + i));
+            }
+            metrics.mapLoaded("my-map", nodes);
+
+            List<Node> added = Arrays.asList(node("i", "name10"), node("i", "name11"));
+            nodes.addAll(added);
+            metrics.mapGrown("my-map", added);
+            assertEquals(MapMetrics.documentBytes(nodes), registry.get("mindmap.map.document.size").tag("map", "my-map").gauge().value());
+        }
+
+        @Test
+        @DisplayName("Case more maps than the limit were loaded, then drop the gauges of the least recent ones")
+        void testMapLoadedCaseLimitReached() {
+            MapMetrics metrics = new MapMetrics(registry, 1, false);
+
+            metrics.mapLoaded("map-1", Collections.singletonList(node("", "i")));
+            metrics.mapLoaded("map-2", Collections.singletonList(node("", "i")));
+            metrics.mapLoaded("map-2", Collections.singletonList(node("", "i")));
+            assertEquals(1, registry.find("mindmap.map.nodes").gauges().size());
+            assertNull(registry.find("mindmap.map.nodes").tag("map", "map-1").gauge());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a documentBytes CMD")
+    class DocumentBytes {
+        @Test
+        @DisplayName("Estimate the BSON size of the nodes array")
+        void testDocumentBytes() {
+            List<Node> nodes = Arrays.asList(node("", "i"), node("i", "name1"), node("i/name1", "name11"));
+            nodes.get(2).setText("some text");
+            List<Document> documents = new ArrayList<>();
+            for (Node node : nodes) {
+                Document document = new Document("_id", new ObjectId(node.getId())).append("name", node.getName()).append("parentPath", node.getParentPath());
+                if (!node.getText().isEmpty()) {
+                    document.append("text", node.getText());
+                }
+                documents.add(document);
+            }
+            long actual = bsonBytes(new Document("nodes", documents)) - bsonBytes(new Document("nodes", Collections.emptyList()));
+
+            assertEquals(actual, MapMetrics.documentBytes(nodes) - MapMetrics.documentBytes(Collections.emptyList()));
+        }
+    }
+
+    private static long bsonBytes(Document document) {
+        return new RawBsonDocument(document, new DocumentCodec()).getByteBuffer().remaining();
+    }
+
+    private static Node node(String parentPath, String name) {
+        return Node.builder().id(new ObjectId().toHexString()).parentPath(parentPath).name(name).build();
+    }
+}
@@ -0,0 +1,84 @@
+package com.mind.map.api.services;
+
+import com.mind.map.api.MapRepository;
+import com.mind.map.api.domain.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MapNamesTest {
+    private final MapRepository repository = mock(MapRepository.class);
+
+    @Nested
+    @DisplayName("Given a mightExist CMD")
+    class MightExist {
+        @Test
+        @DisplayName("Case the filter is disabled, then every name might exist")
+        void testMightExistCaseDisabled() {
+            MapNames names = new MapNames(repository, false, 1000, 0.01, Duration.ofHours(1));
+            assertTrue(names.mightExist("unknown"));
+            verify(repository, never()).findAllNames();
+        }
+
+        @Test
+        @DisplayName("Case the filter is seeded, then only the stored and created names might exist")
+        void testMightExistCaseSeeded() throws Exception {
+            when(repository.findAllNames()).thenAnswer(invocation -> Stream.of(map("my-map")));
+            MapNames names = seeded();
+            try {
+                assertTrue(names.mightExist("my-map"));
+                assertFalse(names.mightExist("other-map"));
+                names.add("other-map");
+                assertTrue(names.mightExist("other-map"));
+            } finally {
+                names.close();
+            }
+        }
+
+        @Test
+        @DisplayName("Case a map is created while seeding, then keep its name")
+        void testMightExistCaseCreatedWhileSeeding() throws Exception {
+            CompletableFuture<MapNames> seeding = new CompletableFuture<>();
+            when(repository.findAllNames()).thenAnswer(invocation -> Stream.of(map("my-map"))
+                    .peek(map -> seeding.join().add("created-map")));
+            MapNames names = new MapNames(repository, true, 1000, 0.01, Duration.ofHours(1));
+            seeding.complete(names);
+            try {
+                await(names);
+                assertTrue(names.mightExist("created-map"));
+            } finally {
+                names.close();
+            }
+        }
+
+        private MapNames seeded() throws InterruptedException {
+            MapNames names = new MapNames(repository, true, 1000, 0.01, Duration.ofHours(1));
+            await(names);
+            return names;
+        }
+
+        private void await(MapNames names) throws InterruptedException {
+            for (int i = 0; i < 500 && names.mightExist("unknown"); i++) {
+                Thread.sleep(10);
+            }
+            assertFalse(names.mightExist("unknown"));
+        }
+    }
+
+    private static Map map(String name) {
+        Map map = new Map();
+        map.setName(name);
+        return map;
+    }
+}
@@ -1,34 +1,83 @@
 package com.mind.map.api.services;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mind.map.api.MapChangeRepository;
 import com.mind.map.api.MapRepository;
 import com.mind.map.api.domain.AddLeafResponse;
+import com.mind.map.api.domain.AddLeavesResponse;
 import com.mind.map.api.domain.CreateMapRequest;
 import com.mind.map.api.domain.Leaf;
 import com.mind.map.api.domain.Map;
+import com.mind.map.api.domain.MapChange;
+import com.mind.map.api.domain.MapChangesResponse;
 import com.mind.map.api.domain.Node;
+import com.mind.map.api.domain.NodeResponse;
 import com.mind.map.api.domain.ReadMapResponse;
 import com.mind.map.api.exceptions.AlreadyExistException;
 import com.mind.map.api.exceptions.NotFoundException;
+import com.mind.map.api.exceptions.WriteConflictException;
+import com.mind.map.api.ids.IdGenerator;
+import com.mind.map.api.ids.ObjectIdGenerator;
+import com.mind.map.api.storage.EmbeddedMapStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.MockitoAnnotations;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class MapServiceTest {
     private final MapRepository repository = mock(MapRepository.class);
     private final Helper helper = new Helper();
 
-    private final MapService service = new MapService(repository, helper);
+    private final MapCache cache = new MapCache(true, 1 << 20, Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final MapChangeRepository changeRepository = mock(MapChangeRepository.class);
+
+    private final MapChangeLog changeLog = new MapChangeLog(changeRepository, mongoTemplate(), true, Duration.ofHours(1));
+
+    private final MapEvents events = mock(MapEvents.class);
+
+    private final MapNames names = new MapNames(repository, false, 0, 0.01, Duration.ZERO);
+
+    private final MapService service = new MapService(new EmbeddedMapStorage(repository), helper, new ObjectMapper(), cache, new MapWriteQueue(64, Duration.ZERO, 256), new ObjectIdGenerator(),
+            new MapMetrics(registry, 100, false), changeLog, events, names);
 
     @Nested
     @DisplayName("Given a createMap CMD")
@@ -82,6 +131,181 @@ class MapServiceTest {
             assertEquals("name21", response.getNodes().get(0).getNodes().get(0).getNodes().get(1).getNodes().get(0).getName());
             assertEquals("name22", response.getNodes().get(0).getNodes().get(0).getNodes().get(1).getNodes().get(1).getName());
         }
+
+        @Test
+        @DisplayName("Case map exist, then time each stage of the request and publish the map size")
+        void testGetMapCaseMetrics() {
+            Map map = map();
+            when(repository.findByName(any(String.class))).thenReturn(map);
+
+            service.getMap("my-map");
+            assertEquals(1, registry.get("mindmap.stage").tag("stage", "fetch").tag("endpoint", "getMap").timer().count());
+            assertEquals(1, registry.get("mindmap.stage").tag("stage", "index").tag("endpoint", "getMap").timer().count());
+            assertEquals(1, registry.get("mindmap.stage").tag("stage", "assemble").tag("endpoint", "getMap").timer().count());
+            assertEquals(map.getNodes().size(), registry.get("mindmap.map.nodes").tag("map", "my-map").gauge().value());
+            assertEquals(MapMetrics.documentBytes(map.getNodes()), registry.get("mindmap.map.document.size").tag("map", "my-map").gauge().value());
+        }
+
+        @Test
+        @DisplayName("Case map was read before, then serve it from the cache and patch it when a leaf is added")
+        void testGetMapCaseCached() {
+            when(repository.findByName(any(String.class))).thenAnswer(invocation -> map());
+            when(repository.pushNodes(any(String.class), anyList(), anyLong())).thenReturn(true);
+
+            service.getMap("my-map");
+            service.printMap("my-map", "", Integer.MAX_VALUE, 0);
+            verify(repository, times(1)).findByName("my-map");
+
+            String id = service.addLeaf("my-map", Leaf.builder().path("i/name2/name23").text("text 23").build()).getId();
+            ReadMapResponse response = service.getMap("my-map", 1);
+            verify(repository, times(2)).findByName("my-map");
+            assertEquals("i/name2/name23", response.getNodes().get(0).getNodes().get(0).getNodes().get(1).getNodes().get(2).getPath());
+            assertEquals(Leaf.builder().path("i/name2/name23").text("text 23").build(), service.readLeaf("my-map", id));
+            verify(repository, never()).findByNameAndNodeId(any(String.class), any(String.class));
+        }
+
+        @Test
+        @DisplayName("Case the cached tree is older than the written version, then drop it")
+        void testAddLeafCaseCachedTreeIsStale() {
+            Map fresh = map();
+            fresh.setVersion(1);
+            when(repository.findByName(any(String.class))).thenReturn(map(), fresh, fresh);
+            when(repository.pushNodes(any(String.class), anyList(), anyLong())).thenReturn(true);
+
+            service.getMap("my-map");
+            service.addLeaf("my-map", Leaf.builder().path("u/like").text("text").build());
+            service.getMap("my-map");
+            verify(repository, times(3)).findByName("my-map");
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a GetVersion CMD")
+    class GetVersion {
+        @Test
+        @DisplayName("Case map exist, then return its version")
+        void testGetVersionCaseMapExist() {
+            Map map = new Map();
+            map.setVersion(4);
+            when(repository.findVersionByName("my-map")).thenReturn(map);
+            assertEquals(4, service.getVersion("my-map"));
+        }
+
+        @Test
+        @DisplayName("Case map doesn't exist, then throw NotFoundException")
+        void testGetVersionCaseMapDoNotExist() {
+            assertThrows(NotFoundException.class, ()->{
+                service.getVersion("my-map");
+            });
+        }
+
+        @Test
+        @DisplayName("Case cached tree is older than the stored version, then reload the map")
+        void testGetMapCaseCachedTreeIsStale() {
+            Map stale = map();
+            Map fresh = map();
+            fresh.setVersion(1);
+            fresh.getNodes().add(Node.builder().parentPath("").name("u").id("u-id").build());
+            when(repository.findByName(any(String.class))).thenReturn(stale, fresh);
+
+            service.getMap("my-map", 0);
+            assertEquals(1, service.getMap("my-map", 0).getNodes().get(0).getNodes().size());
+            assertEquals(2, service.getMap("my-map", 1).getNodes().get(0).getNodes().size());
+            assertEquals(2, service.getMap("my-map", 0).getNodes().get(0).getNodes().size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a StreamMap CMD")
+    class StreamMap {
+        @Test
+        @DisplayName("Case map exist, then stream the same JSON as the serialized ReadMapResponse")
+        void testStreamMapCaseMapExist() throws Exception {
+            Map map = map();
+            when(repository.findByName(any(String.class))).thenReturn(map);
+
+            ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+            service.streamMap("my-map", 0).writeTo(streamed);
+            String serialized = new ObjectMapper().writeValueAsString(service.getMap("my-map"));
+
+            assertEquals(serialized, streamed.toString("UTF-8"));
+        }
+
+        @Test
+        @DisplayName("Case writing fails midway, then close the generator without completing the JSON")
+        void testStreamMapCaseWriteFails() throws Exception {
+            when(repository.findByName(any(String.class))).thenReturn(map());
+            MapService service = new MapService(new EmbeddedMapStorage(repository), new Helper() {
+                @Override
+                public void writeMap(JsonGenerator generator, String mapName, NodeTree tree) throws IOException {
+                    generator.writeStartObject();
+                    generator.writeFieldName("nodes");
+                    generator.writeStartArray();
+                    throw new IOException("write failed");
+                }
+            }, new ObjectMapper(), cache, new MapWriteQueue(64, Duration.ZERO, 256), new ObjectIdGenerator(),
+                    new MapMetrics(registry, 100, false), changeLog, events, names);
+
+            ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+            assertThrows(IOException.class, () -> service.streamMap("my-map", 0).writeTo(streamed));
+            assertEquals("{\"nodes\":[", streamed.toString("UTF-8"));
+        }
+
+        @Test
+        @DisplayName("Case map doesn't exist, then throw NotFoundException before streaming")
+        void testStreamMapCaseMapDoNotExist() {
+            when(repository.findByName(any(String.class))).thenReturn(null);
+            assertThrows(NotFoundException.class, ()->{
+                service.streamMap("my-map", 0);
+            });
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a GetSubtree CMD")
+    class GetSubtree {
+        @Test
+        @DisplayName("Case path exists, then return the branch starting at that path")
+        void testGetSubtreeCasePathExist() {
+            when(repository.findByName(any(String.class))).thenReturn(map());
+
+            ReadMapResponse response = service.getSubtree("my-map", "/i/name2/", Integer.MAX_VALUE, 0);
+            NodeResponse branch = response.getNodes().get(0);
+            assertEquals("name2", branch.getName());
+            assertEquals("i/name2", branch.getPath());
+            assertEquals(2, branch.getNodes().size());
+            assertEquals("i/name2/name22", branch.getNodes().get(1).getPath());
+        }
+
+        @Test
+        @DisplayName("Case path is empty and depth is limited, then return the top of the map")
+        void testGetSubtreeCaseRootWithDepth() {
+            when(repository.findByName(any(String.class))).thenReturn(map());
+
+            ReadMapResponse response = service.getSubtree("my-map", "", 1, 0);
+            NodeResponse root = response.getNodes().get(0);
+            assertEquals("my-map", root.getName());
+            assertEquals(1, root.getNodes().size());
+            assertEquals(0, root.getNodes().get(0).getNodes().size());
+        }
+
+        @Test
+        @DisplayName("Case path doesn't exist, then throw NotFoundException")
+        void testGetSubtreeCasePathDoNotExist() {
+            when(repository.findByName(any(String.class))).thenReturn(map());
+            assertThrows(NotFoundException.class, ()->{
+                service.getSubtree("my-map", "i/name3", 2, 0);
+            });
+        }
+
+        @Test
+        @DisplayName("Case map doesn't exist, then throw NotFoundException")
+        void testGetSubtreeCaseMapDoNotExist() {
+            when(repository.findByName(any(String.class))).thenReturn(null);
+            assertThrows(NotFoundException.class, ()->{
+                service.getSubtree("my-map", "i", 2, 0);
+            });
+        }
     }
 
     @Nested
@@ -89,12 +313,43 @@ class MapServiceTest {
     class PrintMap {
         @Test
         @DisplayName("Given a Map object return a pretty print string")
-        void testPrintMap() {
+        void testPrintMap() throws Exception {
             Map map = map();
             when(repository.findByName(any(String.class))).thenReturn(map);
 
-            String pretty = service.printMap("my-map");
-            assertEquals("root/\n\ti/\n\t\tname1/\n\t\tname2/\n\t\t\tname21/\n\t\t\tname22/\n", pretty);
+            ByteArrayOutputStream pretty = new ByteArrayOutputStream();
+            service.printMap("my-map", "", Integer.MAX_VALUE, 0).writeTo(pretty);
+            assertEquals("root/\n\ti/\n\t\tname1/\n\t\tname2/\n\t\t\tname21/\n\t\t\tname22/\n", pretty.toString("UTF-8"));
+        }
+
+        @Test
+        @DisplayName("Given a path and a depth, stream only that branch")
+        void testPrintMapCasePathAndDepth() throws Exception {
+            when(repository.findByName(any(String.class))).thenReturn(map());
+
+            ByteArrayOutputStream pretty = new ByteArrayOutputStream();
+            service.printMap("my-map", "i", 1, 0).writeTo(pretty);
+            assertEquals("i/\n\tname1/\n\tname2/\n", pretty.toString("UTF-8"));
+        }
+
+        @Test
+        @DisplayName("Given a depth of 0, print only the root like the subtree read")
+        void testPrintMapCaseDepthZero() throws Exception {
+            when(repository.findByName(any(String.class))).thenReturn(map());
+
+            ByteArrayOutputStream pretty = new ByteArrayOutputStream();
+            service.printMap("my-map", "", 0, 0).writeTo(pretty);
+            assertEquals("root/\n", pretty.toString("UTF-8"));
+            assertTrue(service.getSubtree("my-map", "", 0, 0).getNodes().get(0).getNodes().isEmpty());
+        }
+
+        @Test
+        @DisplayName("Case path doesn't exist, then throw NotFoundException")
+        void testPrintMapCasePathDoNotExist() {
+            when(repository.findByName(any(String.class))).thenReturn(map());
+            assertThrows(NotFoundException.class, ()->{
+                service.printMap("my-map", "u", 1, 0);
+            });
         }
     }
 
@@ -116,6 +371,7 @@ class MapServiceTest {
         void testAddLeafCaseMapExist() {
             Map map = map();
             when(repository.findByName(any(String.class))).thenReturn(map);
+            when(repository.pushNodes(any(String.class), anyList(), anyLong())).thenReturn(true);
             Leaf request = Leaf.builder()
                     .path("u/know")
                     .text("text text")
@@ -130,6 +386,160 @@ class MapServiceTest {
             assertEquals("u", map.getNodes().get(6).getParentPath());
             assertEquals("text text", map.getNodes().get(6).getText());
         }
+
+        @Test
+        @DisplayName("Case leaf already exist, return the existing leaf id")
+        void testAddLeafCaseLeafExist() {
+            Map map = map();
+            when(repository.findByName(any(String.class))).thenReturn(map);
+            Leaf request = Leaf.builder()
+                    .path("i/name2/name22")
+                    .text("text text")
+                    .build();
+            AddLeafResponse response = service.addLeaf("my-map", request);
+            assertEquals(5, map.getNodes().size());
+            assertEquals("e7bfca6d-6067-46f9-bdfb-0aca01fa6476", response.getId());
+        }
+
+        @Test
+        @DisplayName("Case the parent path already exist, then only generate an id for the created node")
+        void testAddLeafCaseParentExist() {
+            IdGenerator idGenerator = mock(IdGenerator.class);
+            when(idGenerator.nextId()).thenReturn("name23-id");
+            MapService service = new MapService(new EmbeddedMapStorage(repository), helper, new ObjectMapper(), cache,
+                    new MapWriteQueue(64, Duration.ZERO, 256), idGenerator, new MapMetrics(registry, 100, false), changeLog, events, names);
+            Map map = map();
+            when(repository.findByName(any(String.class))).thenReturn(map);
+            when(repository.pushNodes(any(String.class), anyList(), anyLong())).thenReturn(true);
+
+            AddLeafResponse response = service.addLeaf("my-map", Leaf.builder().path("i/name2/name23").text("text").build());
+            assertEquals("name23-id", response.getId());
+            assertEquals("i/name2", map.getNodes().get(5).getParentPath());
+            verify(idGenerator, times(1)).nextId();
+        }
+
+        @Test
+        @DisplayName("Case a concurrent update added the nodes, retry and return the stored leaf id")
+        void testAddLeafCaseConcurrentUpdate() {
+            Map concurrent = map();
+            concurrent.getNodes().add(Node.builder().parentPath("").name("u").id("u-id").build());
+            concurrent.getNodes().add(Node.builder().parentPath("u").name("know").id("know-id").build());
+            when(repository.findByName(any(String.class))).thenReturn(map(), concurrent);
+            when(repository.pushNodes(any(String.class), anyList(), anyLong())).thenReturn(false);
+            Leaf request = Leaf.builder()
+                    .path("u/know")
+                    .text("text text")
+                    .build();
+            AddLeafResponse response = service.addLeaf("my-map", request);
+            assertEquals("know-id", response.getId());
+            verify(repository, times(1)).pushNodes(any(String.class), anyList(), anyLong());
+        }
+
+        @Test
+        @DisplayName("Case the conditional push keeps failing, then throw WriteConflictException")
+        void testAddLeafCaseTooManyConflicts() {
+            when(repository.findByName(any(String.class))).thenAnswer(invocation -> map());
+            when(repository.pushNodes(any(String.class), anyList(), anyLong())).thenReturn(false);
+            Leaf request = Leaf.builder()
+                    .path("u/know")
+                    .text("text text")
+                    .build();
+            assertThrows(WriteConflictException.class, ()->{
+                service.addLeaf("my-map", request);
+            });
+            verify(repository, times(3)).pushNodes(any(String.class), anyList(), anyLong());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given an addLeaves CMD")
+    class AddLeaves {
+        @Test
+        @DisplayName("Case leaves share a prefix, then create it once and push every new node in one update")
+        void testAddLeavesCaseSharedPrefix() {
+            Map map = map();
+            map.setVersion(4);
+            when(repository.findByName(any(String.class))).thenReturn(map);
+            when(repository.pushNodes(any(String.class), anyList(), anyLong())).thenReturn(true);
+
+            AddLeavesResponse response = service.addLeaves("my-map", Arrays.asList(
+                    Leaf.builder().path("u/know").text("text 1").build(),
+                    Leaf.builder().path("u/like").text("text 2").build(),
+                    Leaf.builder().path("i/name2/name22").text("text 3").build(),
+                    Leaf.builder().path("u/know").text("text 4").build()));
+
+            assertEquals(8, map.getNodes().size());
+            assertEquals(4, response.getIds().size());
+            assertEquals(map.getNodes().get(6).getId(), response.getIds().get(0));
+            assertEquals(map.getNodes().get(7).getId(), response.getIds().get(1));
+            assertEquals("e7bfca6d-6067-46f9-bdfb-0aca01fa6476", response.getIds().get(2));
+            assertEquals(response.getIds().get(0), response.getIds().get(3));
+            assertEquals("text 1", map.getNodes().get(6).getText());
+            verify(repository, times(1)).pushNodes(eq("my-map"), anyList(), eq(4L));
+        }
+
+        @Test
+        @DisplayName("Case the batch is larger than one write, then push it in version-ordered chunks")
+        void testAddLeavesCaseLargeBatch() {
+            Map map = map();
+            when(repository.findByName(any(String.class))).thenReturn(map);
+            when(repository.pushNodes(any(String.class), anyList(), anyLong())).thenReturn(true);
+            List<Leaf> leaves = new ArrayList<>();
+            for (int i = 0; i < 1500; i++) {
+                leaves.add(Leaf.builder().path("bulk/leaf" + i).text("text").build());
+            }
+
+            AddLeavesResponse response = service.addLeaves("my-map", leaves);
+
+            assertEquals(1500, response.getIds().size());
+            verify(repository, times(1)).pushNodes(eq("my-map"), anyList(), eq(0L));
+            verify(repository, times(1)).pushNodes(eq("my-map"), anyList(), eq(1L));
+        }
+    }
+
+    @Nested
+    @DisplayName("Given concurrent addLeaf CMDs")
+    class ConcurrentAddLeaf {
+        @Test
+        @DisplayName("Case writers target the same map, then serialize or group them so no write conflicts")
+        void testAddLeafCaseSameMap() throws Exception {
+            Map stored = map();
+            when(repository.findByName("my-map")).thenAnswer(invocation -> {
+                synchronized (stored) {
+                    Map copy = map();
+                    copy.setNodes(new ArrayList<>(stored.getNodes()));
+                    copy.setVersion(stored.getVersion());
+                    return copy;
+                }
+            });
+            when(repository.pushNodes(eq("my-map"), anyList(), anyLong())).thenAnswer(invocation -> {
+                synchronized (stored) {
+                    if (stored.getVersion() != invocation.getArgument(2, Long.class)) {
+                        return false;
+                    }
+                    stored.getNodes().addAll(invocation.getArgument(1));
+                    stored.setVersion(stored.getVersion() + 1);
+                    return true;
+                }
+            });
+
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<AddLeafResponse>> responses = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    Leaf leaf = Leaf.builder().path("u/leaf" + i).text("text").build();
+                    responses.add(executor.submit(() -> service.addLeaf("my-map", leaf)));
+                }
+                for (Future<AddLeafResponse> response : responses) {
+                    response.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+
+            assertEquals(5 + 1 + 200, stored.getNodes().size());
+            verify(repository, times((int) stored.getVersion())).pushNodes(eq("my-map"), anyList(), anyLong());
+        }
     }
 
     @Nested
@@ -138,33 +548,215 @@ class MapServiceTest {
         @Test
         @DisplayName("Case map does not exits, then throw NotFoundException")
         void testReadLeafCaseMapDoesNotExist() {
-            when(repository.findByName(any(String.class))).thenReturn(null);
-            assertThrows(NotFoundException.class, ()->{
+            when(repository.findByNameAndNodeId(any(String.class), any(String.class))).thenReturn(null);
+            when(repository.existsByName(any(String.class))).thenReturn(false);
+            NotFoundException ex = assertThrows(NotFoundException.class, ()->{
                 service.readLeaf("my-map", "i/name1");
             });
+            assertEquals("Unable to find the leaf. A map with name=my-map doesn't exist", ex.getMessage());
         }
 
         @Test
         @DisplayName("Case leaf was not found, then throw NotFoundException")
         void testReadLeafCaseLeafDoesNotExist() {
-            Map map = map();
-            when(repository.findByName(any(String.class))).thenReturn(map);
-            assertThrows(NotFoundException.class, ()->{
+            when(repository.findByNameAndNodeId(any(String.class), any(String.class))).thenReturn(null);
+            when(repository.existsByName(any(String.class))).thenReturn(true);
+            NotFoundException ex = assertThrows(NotFoundException.class, ()->{
                 service.readLeaf("my-map", "I/Know");
             });
+            assertEquals("Unable to find the leaf with Id=I/Know", ex.getMessage());
         }
 
         @Test
         @DisplayName("Case leaf is found, then return leaf")
         void testReadLeafCaseLeafExist() {
             Map map = map();
-            when(repository.findByName(any(String.class))).thenReturn(map);
+            map.setNodes(Collections.singletonList(map.getNodes().get(4)));
+            when(repository.findByNameAndNodeId("my-map", "e7bfca6d-6067-46f9-bdfb-0aca01fa6476")).thenReturn(map);
             Leaf leaf = service.readLeaf("my-map", "e7bfca6d-6067-46f9-bdfb-0aca01fa6476");
             assertEquals("i/name2/name22", leaf.getPath());
             assertEquals("text text", leaf.getText());
         }
     }
 
+    @Nested
+    @DisplayName("Given a getChanges CMD")
+    class GetChanges {
+        @Captor
+        private ArgumentCaptor<Supplier<MapChangesResponse>> initial;
+
+        @BeforeEach
+        void initCaptors() {
+            MockitoAnnotations.openMocks(this);
+        }
+
+        @Test
+        @DisplayName("Case a leaf is added, then record the new nodes at the version they produced")
+        void testGetChangesCaseLeafAdded() {
+            when(repository.findByName(any(String.class))).thenReturn(map());
+            when(repository.pushNodes(any(String.class), anyList(), anyLong())).thenReturn(true);
+
+            service.addLeaf("my-map", Leaf.builder().path("i/name3/name31").text("text").build());
+            ArgumentCaptor<MapChange> change = ArgumentCaptor.forClass(MapChange.class);
+            verify(changeRepository).insert(change.capture());
+            assertEquals("my-map", change.getValue().getMapName());
+            assertEquals(1, change.getValue().getVersion());
+            assertEquals(Arrays.asList("i/name3", "i/name3/name31"), Arrays.asList(change.getValue().getNodes().get(0).getPath(), change.getValue().getNodes().get(1).getPath()));
+        }
+
+        @Test
+        @DisplayName("Case the log holds every change since the version, then return only the added nodes")
+        void testGetChangesCaseLogComplete() {
+            when(repository.findVersionByName("my-map")).thenReturn(version(3));
+            when(changeRepository.findByMapNameAndVersionGreaterThanOrderByVersion("my-map", 1)).thenReturn(Arrays.asList(
+                    change(2, "name3"), change(3, "name4")));
+
+            MapChangesResponse response = service.getChanges("my-map", 1);
+            assertEquals(3, response.getVersion());
+            assertEquals(false, response.isResync());
+            assertEquals(2, response.getNodes().size());
+            assertEquals("i/name4", response.getNodes().get(1).getPath());
+        }
+
+        @Test
+        @DisplayName("Case the log was trimmed past the version, then ask for a full resync")
+        void testGetChangesCaseLogTrimmed() {
+            when(repository.findVersionByName("my-map")).thenReturn(version(3));
+            when(changeRepository.findByMapNameAndVersionGreaterThanOrderByVersion("my-map", 1)).thenReturn(Collections.singletonList(change(3, "name4")));
+
+            MapChangesResponse response = service.getChanges("my-map", 1);
+            assertEquals(3, response.getVersion());
+            assertEquals(true, response.isResync());
+            assertEquals(null, response.getNodes());
+        }
+
+        @Test
+        @DisplayName("Case the client is up to date, then return no nodes without reading the log")
+        void testGetChangesCaseUpToDate() {
+            when(repository.findVersionByName("my-map")).thenReturn(version(3));
+
+            MapChangesResponse response = service.getChanges("my-map", 3);
+            assertEquals(false, response.isResync());
+            assertEquals(0, response.getNodes().size());
+            verify(changeRepository, never()).findByMapNameAndVersionGreaterThanOrderByVersion(any(String.class), anyLong());
+        }
+
+        @Test
+        @DisplayName("Case the client is ahead of the map, then ask for a full resync")
+        void testGetChangesCaseAhead() {
+            when(repository.findVersionByName("my-map")).thenReturn(version(3));
+
+            assertEquals(true, service.getChanges("my-map", 4).isResync());
+        }
+
+        @Test
+        @DisplayName("Case map doesn't exist, then throw NotFoundException")
+        void testGetChangesCaseMapDoNotExist() {
+            when(repository.findVersionByName("my-map")).thenReturn(null);
+
+            assertThrows(NotFoundException.class, () -> service.getChanges("my-map", 0));
+        }
+
+        @Test
+        @DisplayName("Case a leaf is added, then publish the new nodes to the map subscribers")
+        void testGetChangesCaseLeafPublished() {
+            when(repository.findByName(any(String.class))).thenReturn(map());
+            when(repository.pushNodes(any(String.class), anyList(), anyLong())).thenReturn(true);
+
+            service.addLeaf("my-map", Leaf.builder().path("i/name3/name31").text("text").build());
+            verify(events).publish(eq("my-map"), eq(1L), argThat(nodes -> nodes.size() == 2));
+        }
+
+        @Test
+        @DisplayName("Case a subscriber has no version, then start the stream at the current version")
+        void testGetChangesCaseSubscribe() {
+            when(repository.findVersionByName("my-map")).thenReturn(version(3));
+
+            service.subscribe("my-map", null);
+            verify(events).subscribe(eq("my-map"), initial.capture());
+            assertEquals(3, initial.getValue().get().getVersion());
+            assertEquals(0, initial.getValue().get().getNodes().size());
+        }
+
+        @Test
+        @DisplayName("Case a subscriber reconnects, then start the stream with the changes it missed")
+        void testGetChangesCaseResubscribe() {
+            when(repository.findVersionByName("my-map")).thenReturn(version(3));
+            when(changeRepository.findByMapNameAndVersionGreaterThanOrderByVersion("my-map", 2)).thenReturn(Collections.singletonList(change(3, "name4")));
+
+            service.subscribe("my-map", 2L);
+            verify(events).subscribe(eq("my-map"), initial.capture());
+            assertEquals("i/name4", initial.getValue().get().getNodes().get(0).getPath());
+        }
+
+        private Map version(long version) {
+            Map map = new Map();
+            map.setVersion(version);
+            return map;
+        }
+
+        private MapChange change(long version, String name) {
+            return MapChange.builder()
+                    .mapName("my-map")
+                    .version(version)
+                    .nodes(Collections.singletonList(Node.builder().parentPath("i").name(name).id(UUID.randomUUID().toString()).build()))
+                    .build();
+        }
+    }
+
+    @Nested
+    @DisplayName("Given the map names filter")
+    class UnknownMap {
+        @Test
+        @DisplayName("Case the map name was never stored, then throw a stackless NotFoundException without reading the map")
+        void testUnknownMapCaseNeverStored() throws Exception {
+            when(repository.findAllNames()).thenAnswer(invocation -> Stream.of(map()));
+            MapNames names = new MapNames(repository, true, 1000, 0.01, Duration.ofHours(1));
+            MapService service = new MapService(new EmbeddedMapStorage(repository), helper, new ObjectMapper(), cache, new MapWriteQueue(64, Duration.ZERO, 256),
+                    new ObjectIdGenerator(), new MapMetrics(registry, 100, false), changeLog, events, names);
+            try {
+                for (int i = 0; i < 500 && names.mightExist("other-map"); i++) {
+                    Thread.sleep(10);
+                }
+
+                NotFoundException ex = assertThrows(NotFoundException.class, () -> service.getMap("other-map"));
+                assertEquals("Unable to find a map with name=other-map", ex.getMessage());
+                assertEquals(0, ex.getStackTrace().length);
+                assertThrows(NotFoundException.class, () -> service.readLeaf("other-map", "leaf-id"));
+                verify(repository, never()).findByName(any(String.class));
+                verify(repository, never()).findByNameAndNodeId(any(String.class), any(String.class));
+            } finally {
+                names.close();
+            }
+        }
+
+        @Test
+        @DisplayName("Case the map is created after seeding, then read it from the repository")
+        void testUnknownMapCaseCreated() throws Exception {
+            when(repository.findAllNames()).thenAnswer(invocation -> Stream.empty());
+            MapNames names = new MapNames(repository, true, 1000, 0.01, Duration.ofHours(1));
+            MapService service = new MapService(new EmbeddedMapStorage(repository), helper, new ObjectMapper(), cache, new MapWriteQueue(64, Duration.ZERO, 256),
+                    new ObjectIdGenerator(), new MapMetrics(registry, 100, false), changeLog, events, names);
+            try {
+                for (int i = 0; i < 500 && names.mightExist("my-map"); i++) {
+                    Thread.sleep(10);
+                }
+                service.createMap(createMapRequest());
+                when(repository.findByName("my-map")).thenReturn(map());
+
+                assertEquals(1, service.getMap("my-map").getNodes().size());
+            } finally {
+                names.close();
+            }
+        }
+    }
+
+    private static MongoTemplate mongoTemplate() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.indexOps(MapChange.class)).thenReturn(mock(IndexOperations.class));
+        return mongoTemplate;
+    }
+
     private Map map() {
         Map map = new Map();
         map.setName("my-map");
@@ -0,0 +1,104 @@
+package com.mind.map.api.services;
+
+import com.mind.map.api.domain.Leaf;
+import com.mind.map.api.exceptions.WriteConflictException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MapWriteQueueTest {
+
+    @Nested
+    @DisplayName("Given a submit CMD")
+    class Submit {
+        @Test
+        @DisplayName("Case leaves arrive within the window, then write them together and return each caller its id")
+        void testSubmitCaseCoalesced() throws Exception {
+            MapWriteQueue queue = new MapWriteQueue(64, Duration.ofMillis(200), 16);
+            AtomicInteger writes = new AtomicInteger();
+            List<Integer> batchSizes = new ArrayList<>();
+
+            ExecutorService executor = Executors.newFixedThreadPool(16);
+            try {
+                List<Future<String>> ids = new ArrayList<>();
+                for (int i = 0; i < 16; i++) {
+                    Leaf leaf = Leaf.builder().path("leaf" + i).text("text").build();
+                    ids.add(executor.submit(() -> queue.submit("my-map", leaf, (name, leaves) -> {
+                        writes.incrementAndGet();
+                        batchSizes.add(leaves.size());
+                        return leaves.stream().map(Leaf::getPath).collect(Collectors.toList());
+                    })));
+                }
+                for (int i = 0; i < 16; i++) {
+                    assertEquals("leaf" + i, ids.get(i).get());
+                }
+            } finally {
+                executor.shutdown();
+            }
+
+            assertTrue(writes.get() < 16);
+            assertEquals(16, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        }
+
+        @Test
+        @DisplayName("Case the grouped write fails, then every caller in the group gets the failure")
+        void testSubmitCaseWriteFails() {
+            MapWriteQueue queue = new MapWriteQueue(64, Duration.ZERO, 16);
+
+            assertThrows(WriteConflictException.class, () -> queue.submit("my-map", Leaf.builder().path("leaf").build(), (name, leaves) -> {
+                throw new WriteConflictException("conflict");
+            }));
+        }
+
+        @Test
+        @DisplayName("Case the grouped write throws an Error, then no caller in the group is left waiting")
+        void testSubmitCaseWriteThrowsError() throws Exception {
+            MapWriteQueue queue = new MapWriteQueue(64, Duration.ofSeconds(10), 2);
+
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                List<Future<String>> ids = new ArrayList<>();
+                for (int i = 0; i < 2; i++) {
+                    Leaf leaf = Leaf.builder().path("leaf" + i).text("text").build();
+                    ids.add(executor.submit(() -> queue.submit("my-map", leaf, (name, leaves) -> {
+                        throw new OutOfMemoryError("write");
+                    })));
+                }
+                for (Future<String> id : ids) {
+                    ExecutionException ex = assertThrows(ExecutionException.class, () -> id.get(5, TimeUnit.SECONDS));
+                    assertTrue(ex.getCause() instanceof OutOfMemoryError);
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+        @Test
+        @DisplayName("Case batching is disabled, then write every leaf on its own")
+        void testSubmitCaseBatchOfOne() {
+            MapWriteQueue queue = new MapWriteQueue(64, Duration.ofSeconds(10), 1);
+
+            String id = queue.submit("my-map", Leaf.builder().path("leaf").build(), (name, leaves) -> {
+                assertEquals(1, leaves.size());
+                return Collections.singletonList("id");
+            });
+            assertEquals("id", id);
+        }
+    }
+}
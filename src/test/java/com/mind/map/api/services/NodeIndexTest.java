@@ -0,0 +1,89 @@
+package com.mind.map.api.services;
+
+import com.mind.map.api.domain.Node;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NodeIndexTest {
+
+    @Nested
+    @DisplayName("Given a contains CMD")
+    class Contains {
+        @Test
+        @DisplayName("Case path exists, then return true")
+        void testContainsCasePathExist() {
+            NodeIndex index = NodeIndex.of(mapNodes());
+            assertTrue(index.contains("i/name1"));
+            assertEquals("name1", index.get("i/name1").getName());
+        }
+
+        @Test
+        @DisplayName("Case path doesn't exist, then return false")
+        void testContainsCasePathDoNotExist() {
+            NodeIndex index = NodeIndex.of(mapNodes());
+            assertFalse(index.contains("i/name2"));
+            assertNull(index.get("i/name2"));
+        }
+
+        @Test
+        @DisplayName("Case node is looked up by parent path and name, then return it")
+        void testContainsCaseParentPathAndName() {
+            NodeIndex index = NodeIndex.of(mapNodes());
+            assertEquals("id-1", index.get("", "i").getId());
+            assertEquals("id-2", index.get("i", "name1").getId());
+            assertNull(index.get("", "name1"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Given an addIfAbsent CMD")
+    class AddIfAbsent {
+        @Test
+        @DisplayName("Case node is new, then append it to the list and index it")
+        void testAddIfAbsentCaseNodeIsNew() {
+            List<Node> nodes = mapNodes();
+            NodeIndex index = NodeIndex.of(nodes);
+            Node node = node("i", "name2", "id-3");
+
+            assertSame(node, index.addIfAbsent(node));
+            assertEquals(3, nodes.size());
+            assertTrue(index.contains("i/name2"));
+        }
+
+        @Test
+        @DisplayName("Case node already exists, then return the existing node")
+        void testAddIfAbsentCaseNodeExist() {
+            List<Node> nodes = mapNodes();
+            NodeIndex index = NodeIndex.of(nodes);
+
+            Node existing = index.addIfAbsent(node("i", "name1", "id-3"));
+            assertEquals("id-2", existing.getId());
+            assertEquals(2, nodes.size());
+        }
+    }
+
+    private List<Node> mapNodes() {
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(node("", "i", "id-1"));
+        nodes.add(node("i", "name1", "id-2"));
+        return nodes;
+    }
+
+    private Node node(String parentPath, String name, String id) {
+        return Node.builder()
+                .parentPath(parentPath)
+                .name(name)
+                .id(id)
+                .build();
+    }
+}
@@ -0,0 +1,121 @@
+package com.mind.map.api.services;
+
+import com.mind.map.api.domain.Node;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NodeTreeTest {
+
+    @Nested
+    @DisplayName("Given a find CMD")
+    class Find {
+        @Test
+        @DisplayName("Case path exists, then return the node with its path and text")
+        void testFindCasePathExist() {
+            NodeTree tree = NodeTree.of(mapNodes());
+
+            int node = tree.find("i/name2/name22");
+            assertEquals("name22", tree.name(node));
+            assertEquals("i/name2/name22", tree.path(node));
+            assertEquals("text text", tree.text(node));
+            assertEquals(NodeTree.ROOT, tree.find(""));
+            assertEquals(5, tree.size());
+        }
+
+        @Test
+        @DisplayName("Case path doesn't exist, then return NONE")
+        void testFindCasePathDoNotExist() {
+            NodeTree tree = NodeTree.of(mapNodes());
+
+            assertEquals(NodeTree.NONE, tree.find("i/name3"));
+            assertEquals(NodeTree.NONE, tree.find("i/name2/name22/name"));
+        }
+
+        @Test
+        @DisplayName("Case children come before their parent, then keep the order of the list")
+        void testFindCaseChildBeforeParent() {
+            List<Node> nodes = mapNodes();
+            nodes.add(0, node("i/name2", "name20", "name20-id"));
+            NodeTree tree = NodeTree.of(nodes);
+
+            int first = tree.firstChild(tree.find("i/name2"));
+            assertEquals("name20", tree.name(first));
+            assertEquals("name21", tree.name(tree.nextSibling(first)));
+        }
+
+        @Test
+        @DisplayName("Case tree only holds a subtree, then find nodes below the missing ancestors")
+        void testFindCaseSubtree() {
+            NodeTree tree = NodeTree.of(Arrays.asList(
+                    node("i", "name2", "name2-id"),
+                    node("i/name2", "name21", "name21-id")));
+
+            assertEquals("i/name2/name21", tree.path(tree.find("i/name2/name21")));
+            assertEquals(NodeTree.NONE, tree.find("i"));
+            assertEquals(NodeTree.NONE, tree.firstChild(NodeTree.ROOT));
+            assertEquals(2, tree.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a findById CMD")
+    class FindById {
+        @Test
+        @DisplayName("Case id exists, then return its node")
+        void testFindByIdCaseIdExist() {
+            NodeTree tree = NodeTree.of(mapNodes());
+
+            assertEquals("i/name2/name21", tree.path(tree.findById("name21-id")));
+            assertEquals(NodeTree.NONE, tree.findById("unknown-id"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a withNodes CMD")
+    class WithNodes {
+        @Test
+        @DisplayName("Append the nodes to a copy of the tree")
+        void testWithNodes() {
+            NodeTree tree = NodeTree.of(mapNodes(), 3);
+
+            NodeTree patched = tree.withNodes(Arrays.asList(
+                    node("i/name2", "name23", "name23-id"),
+                    node("i/name2/name23", "name231", "name231-id"),
+                    node("", "u", "u-id")), 4);
+
+            assertEquals(4, patched.version());
+            assertEquals(8, patched.size());
+            assertEquals("i/name2/name23/name231", patched.path(patched.findById("name231-id")));
+            assertEquals("u", patched.name(patched.nextSibling(patched.firstChild(NodeTree.ROOT))));
+            assertEquals(NodeTree.NONE, tree.find("i/name2/name23"));
+            assertEquals(5, tree.size());
+        }
+    }
+
+    private List<Node> mapNodes() {
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(node("", "i", "i-id"));
+        nodes.add(node("i", "name1", "name1-id"));
+        nodes.add(node("i", "name2", "name2-id"));
+        nodes.add(node("i/name2", "name21", "name21-id"));
+        Node name22 = node("i/name2", "name22", "name22-id");
+        name22.setText("text text");
+        nodes.add(name22);
+        return nodes;
+    }
+
+    private Node node(String parentPath, String name, String id) {
+        return Node.builder()
+                .parentPath(parentPath)
+                .name(name)
+                .id(id)
+                .build();
+    }
+}
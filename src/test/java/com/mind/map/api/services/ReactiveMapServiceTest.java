@@ -0,0 +1,229 @@
+package com.mind.map.api.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mind.map.api.ReactiveMapRepository;
+import com.mind.map.api.domain.AddLeavesResponse;
+import com.mind.map.api.domain.CreateMapRequest;
+import com.mind.map.api.domain.Leaf;
+import com.mind.map.api.domain.Map;
+import com.mind.map.api.domain.Node;
+import com.mind.map.api.exceptions.AlreadyExistException;
+import com.mind.map.api.exceptions.NotFoundException;
+import com.mind.map.api.exceptions.WriteConflictException;
+import com.mind.map.api.ids.ObjectIdGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.reactivestreams.Subscription;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReactiveMapServiceTest {
+    private final ReactiveMapRepository repository = mock(ReactiveMapRepository.class);
+    private final Helper helper = new Helper();
+
+    private final MapCache cache = new MapCache(true, 1 << 20, Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+    private final ReactiveMapService service = new ReactiveMapService(repository, helper, new ObjectMapper(), cache, new ObjectIdGenerator(),
+            new MapNames(null, false, 0, 0.01, Duration.ZERO));
+
+    @Nested
+    @DisplayName("Given a createMap CMD")
+    class CreateMap {
+        @Test
+        @DisplayName("Given the map already exist, then signal AlreadyExistException")
+        void testCreateMapCaseMapAlreadyExist() {
+            when(repository.insert(any(Map.class))).thenReturn(Mono.error(new DuplicateKeyException("duplicate")));
+            CreateMapRequest request = new CreateMapRequest();
+            request.setId("my-map");
+
+            assertThrows(AlreadyExistException.class, () -> service.createMap(request).block());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a read CMD")
+    class Read {
+        @Test
+        @DisplayName("Case map exist, then stream the same JSON as the servlet stack")
+        void testStreamMapCaseMapExist() {
+            when(repository.findByName("my-map")).thenReturn(Mono.just(map()));
+
+            String json = DataBufferUtils.join(service.streamMap("my-map", 0))
+                    .map(this::asString)
+                    .block();
+
+            assertEquals("{\"nodes\":[{\"path\":\"\",\"name\":\"my-map\",\"text\":null,\"nodes\":["
+                    + "{\"path\":\"i\",\"name\":\"i\",\"text\":\"\",\"nodes\":["
+                    + "{\"path\":\"i/name1\",\"name\":\"name1\",\"text\":\"text text\",\"nodes\":[]}]}]}]}", json);
+        }
+
+        @Test
+        @DisplayName("Case the subscriber requests one chunk and cancels, then emit only that chunk and stop rendering")
+        void testStreamMapCaseBackpressure() throws Exception {
+            when(repository.findByName("my-map")).thenReturn(Mono.just(largeMap()));
+            BlockingQueue<DataBuffer> received = new LinkedBlockingQueue<>();
+            CountDownLatch terminated = new CountDownLatch(1);
+            AtomicBoolean rendered = new AtomicBoolean();
+            ReactiveMapService service = new ReactiveMapService(repository, new Helper() {
+                @Override
+                public void writeMap(JsonGenerator generator, String mapName, NodeTree tree) throws IOException {
+                    super.writeMap(generator, mapName, tree);
+                    rendered.set(true);
+                }
+            }, new ObjectMapper(), cache, new ObjectIdGenerator(), new MapNames(null, false, 0, 0.01, Duration.ZERO));
+
+            BaseSubscriber<DataBuffer> subscriber = new BaseSubscriber<DataBuffer>() {
+                @Override
+                protected void hookOnSubscribe(Subscription subscription) {
+                    request(1);
+                }
+
+                @Override
+                protected void hookOnNext(DataBuffer buffer) {
+                    received.add(buffer);
+                }
+
+                @Override
+                protected void hookFinally(SignalType type) {
+                    terminated.countDown();
+                }
+            };
+            service.streamMap("my-map", 0).subscribe(subscriber);
+
+            assertNotNull(received.poll(5, TimeUnit.SECONDS));
+            assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+            subscriber.cancel();
+            assertTrue(terminated.await(5, TimeUnit.SECONDS));
+            assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+            assertFalse(rendered.get());
+        }
+
+        @Test
+        @DisplayName("Case map was read before, then serve it from the cache")
+        void testPrintMapCaseCached() {
+            when(repository.findByName("my-map")).thenReturn(Mono.just(map()));
+
+            service.getSubtree("my-map", "", Integer.MAX_VALUE, 0).block();
+            String pretty = DataBufferUtils.join(service.printMap("my-map", "/i/", Integer.MAX_VALUE, 0))
+                    .map(this::asString)
+                    .block();
+
+            assertEquals("i/\n\tname1/\n", pretty);
+            verify(repository, times(1)).findByName("my-map");
+        }
+
+        @Test
+        @DisplayName("Case map doesn't exist, then signal NotFoundException")
+        void testGetVersionCaseMapDoNotExist() {
+            when(repository.findVersionByName("my-map")).thenReturn(Mono.empty());
+
+            assertThrows(NotFoundException.class, () -> service.getVersion("my-map").block());
+        }
+
+        private String asString(DataBuffer buffer) {
+            String value = buffer.toString(StandardCharsets.UTF_8);
+            DataBufferUtils.release(buffer);
+            return value;
+        }
+    }
+
+    @Nested
+    @DisplayName("Given an addLeaves CMD")
+    class AddLeaves {
+        @Test
+        @DisplayName("Case leaves share a prefix, then push the new nodes once at the read version")
+        void testAddLeavesCaseSharedPrefix() {
+            Map map = map();
+            map.setVersion(2);
+            when(repository.findByName("my-map")).thenReturn(Mono.just(map));
+            when(repository.pushNodes(any(String.class), anyList(), anyLong())).thenReturn(Mono.just(true));
+
+            AddLeavesResponse response = service.addLeaves("my-map", Arrays.asList(
+                    Leaf.builder().path("u/know").text("text 1").build(),
+                    Leaf.builder().path("i/name1").text("text 2").build())).block();
+
+            assertEquals(Arrays.asList(map.getNodes().get(3).getId(), "name1-id"), response.getIds());
+            verify(repository, times(1)).pushNodes(eq("my-map"), anyList(), eq(2L));
+        }
+
+        @Test
+        @DisplayName("Case the conditional push keeps failing, then signal WriteConflictException")
+        void testAddLeavesCaseTooManyConflicts() {
+            when(repository.findByName("my-map")).thenAnswer(invocation -> Mono.just(map()));
+            when(repository.pushNodes(any(String.class), anyList(), anyLong())).thenReturn(Mono.just(false));
+
+            assertThrows(WriteConflictException.class, () -> service.addLeaf("my-map", Leaf.builder().path("u").text("text").build()).block());
+            verify(repository, times(3)).pushNodes(any(String.class), anyList(), anyLong());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a readLeaf CMD")
+    class ReadLeaf {
+        @Test
+        @DisplayName("Case leaf was not found, then signal NotFoundException")
+        void testReadLeafCaseLeafDoesNotExist() {
+            when(repository.findByNameAndNodeId("my-map", "I/Know")).thenReturn(Mono.empty());
+            when(repository.existsByName("my-map")).thenReturn(Mono.just(true));
+
+            NotFoundException ex = assertThrows(NotFoundException.class, () -> service.readLeaf("my-map", "I/Know").block());
+            assertEquals("Unable to find the leaf with Id=I/Know", ex.getMessage());
+        }
+    }
+
+    private Map largeMap() {
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(Node.builder().parentPath("").name("i").id("i-id").build());
+        for (int i = 0; i < 1000; i++) {
+            nodes.add(Node.builder().parentPath("i").name("name" + i).id("name" + i + "-id").text("text text").build());
+        }
+        Map map = new Map();
+        map.setName("my-map");
+        map.setNodes(nodes);
+        return map;
+    }
+
+    private Map map() {
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(Node.builder().parentPath("").name("i").id("i-id").build());
+        nodes.add(Node.builder().parentPath("i").name("name1").id("name1-id").text("text text").build());
+        Map map = new Map();
+        map.setName("my-map");
+        map.setNodes(nodes);
+        return map;
+    }
+}
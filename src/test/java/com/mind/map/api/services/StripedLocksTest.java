@@ -0,0 +1,26 @@
+package com.mind.map.api.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class StripedLocksTest {
+
+    @Test
+    @DisplayName("Round the stripe count up to a power of two")
+    void testSize() {
+        assertEquals(1, new StripedLocks(0).size());
+        assertEquals(1, new StripedLocks(1).size());
+        assertEquals(64, new StripedLocks(64).size());
+        assertEquals(128, new StripedLocks(65).size());
+    }
+
+    @Test
+    @DisplayName("Given the same map name, always return the same lock")
+    void testGetCaseSameKey() {
+        StripedLocks locks = new StripedLocks(64);
+        assertSame(locks.get("my-map"), locks.get(new String("my-map")));
+    }
+}
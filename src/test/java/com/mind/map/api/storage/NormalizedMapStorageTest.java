@@ -0,0 +1,258 @@
+package com.mind.map.api.storage;
+
+import com.mind.map.api.MapRepository;
+import com.mind.map.api.MapRepositoryImpl;
+import com.mind.map.api.NodeRepository;
+import com.mind.map.api.domain.Map;
+import com.mind.map.api.domain.Node;
+import com.mind.map.api.domain.NodeDocument;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.result.UpdateResult;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NormalizedMapStorageTest {
+    private final MapRepository mapRepository = mock(MapRepository.class);
+    private final NodeRepository nodeRepository = mock(NodeRepository.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    private final NormalizedMapStorage storage = new NormalizedMapStorage(mapRepository, nodeRepository, mongoTemplate, Duration.ofSeconds(30));
+
+    @Nested
+    @DisplayName("Given a findMap CMD")
+    class FindMap {
+        @Test
+        @DisplayName("Case map exists, then load its nodes from the node collection")
+        void testFindMapCaseMapExist() {
+            when(mapRepository.findByName("my-map")).thenReturn(map(0));
+            when(nodeRepository.findByMapIdOrderBySeq("map-id")).thenReturn(Arrays.asList(
+                    NodeDocument.of("map-id", node("", "i", "id-1"), 0),
+                    NodeDocument.of("map-id", node("i", "name1", "id-2"), 1)));
+
+            Map map = storage.findMap("my-map");
+            assertEquals(2, map.getNodes().size());
+            assertEquals("i/name1", map.getNodes().get(1).getPath());
+        }
+
+        @Test
+        @DisplayName("Case map doesn't exist, then return null")
+        void testFindMapCaseMapDoNotExist() {
+            assertNull(storage.findMap("my-map"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a findNode CMD")
+    class FindNode {
+        @Test
+        @DisplayName("Case node exists, then resolve the map id once and return the node")
+        void testFindNodeCaseNodeExist() {
+            when(mapRepository.findIdByName("my-map")).thenReturn(map(0));
+            when(nodeRepository.findByMapIdAndId("map-id", "id-2"))
+                    .thenReturn(NodeDocument.of("map-id", node("i", "name1", "id-2"), 1));
+
+            assertEquals("name1", storage.findNode("my-map", "id-2").getName());
+            assertEquals("name1", storage.findNode("my-map", "id-2").getName());
+            verify(mapRepository, times(1)).findIdByName("my-map");
+        }
+
+        @Test
+        @DisplayName("Case map doesn't exist, then return null")
+        void testFindNodeCaseMapDoNotExist() {
+            assertNull(storage.findNode("my-map", "id-2"));
+            assertFalse(storage.exists("my-map"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a findSubtree CMD")
+    class FindSubtree {
+        @Test
+        @DisplayName("Only select the branch under the path, down to the depth limit")
+        void testSubtreeQuery() {
+            Document query = storage.subtreeQuery("map-id", "i/name.2", 2).getQueryObject();
+
+            assertEquals(Document.parse("{ 'mapId': 'map-id', '$or': ["
+                    + "{ 'path': 'i/name.2' }, { 'parentPath': 'i/name.2' }, { 'parentPath': { '$regularExpression': { 'pattern': '^i/name\\\\.2/', 'options': '' } } }"
+                    + "], '$and': [{ '$or': [{ 'depth': { '$lte': 4 } }, { 'depth': { '$exists': false } }] }] }").toJson(), query.toJson());
+        }
+
+        @Test
+        @DisplayName("Case depth is unlimited, then do not filter on depth")
+        void testSubtreeQueryCaseUnlimitedDepth() {
+            Document query = storage.subtreeQuery("map-id", "", Integer.MAX_VALUE).getQueryObject();
+
+            assertEquals(Document.parse("{ 'mapId': 'map-id' }"), query);
+        }
+    }
+
+    @Nested
+    @DisplayName("Given an insertNodes CMD")
+    class InsertNodes {
+        @Test
+        @DisplayName("Case nodes are new, then insert them with reserved sequence numbers")
+        void testInsertNodesCaseNodesAreNew() {
+            when(mapRepository.findIdByName("my-map")).thenReturn(map(0));
+            when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Map.class)))
+                    .thenReturn(map(7));
+
+            List<Node> nodes = Arrays.asList(node("", "u", "id-6"), node("u", "know", "id-7"));
+            assertTrue(storage.insertNodes("my-map", nodes, 0));
+            verify(nodeRepository).insert(Arrays.asList(
+                    NodeDocument.of("map-id", nodes.get(0), 5),
+                    NodeDocument.of("map-id", nodes.get(1), 6)));
+            ArgumentCaptor<Query> claim = ArgumentCaptor.forClass(Query.class);
+            verify(mongoTemplate).findAndModify(claim.capture(), any(Update.class), any(FindAndModifyOptions.class), eq(Map.class));
+            assertEquals(Document.parse("{ '_id': 'map-id', 'version': { '$in': [0, null] } }").toJson(), claim.getValue().getQueryObject().toJson());
+        }
+
+        @Test
+        @DisplayName("Case a path was inserted concurrently, then remove the inserted nodes, give the version back and return false")
+        void testInsertNodesCaseDuplicatePath() {
+            when(mapRepository.findIdByName("my-map")).thenReturn(map(0));
+            when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Map.class)))
+                    .thenReturn(map(1));
+            when(mongoTemplate.getCollectionName(Map.class)).thenReturn("mind_map");
+            when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq("mind_map"))).thenReturn(UpdateResult.acknowledged(1, 1L, null));
+            when(nodeRepository.insert(anyList())).thenThrow(DuplicateKeyException.class);
+
+            assertFalse(storage.insertNodes("my-map", Collections.singletonList(node("", "u", "id-6")), 0));
+            ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+            verify(mongoTemplate).remove(removed.capture(), eq(NodeDocument.class));
+            assertEquals(Document.parse("{ 'mapId': 'map-id', '_id': { '$in': ['id-6'] } }").toJson(), removed.getValue().getQueryObject().toJson());
+            ArgumentCaptor<Query> rollback = ArgumentCaptor.forClass(Query.class);
+            ArgumentCaptor<Update> release = ArgumentCaptor.forClass(Update.class);
+            verify(mongoTemplate).updateFirst(rollback.capture(), release.capture(), eq("mind_map"));
+            assertEquals(Document.parse("{ '_id': 'map-id', 'version': 1 }").toJson(), rollback.getValue().getQueryObject().toJson());
+            assertEquals(Document.parse("{ '$unset': { 'pendingWrites.1': 1 }, '$inc': { 'version': -1 } }").toJson(), release.getValue().getUpdateObject().toJson());
+        }
+
+        @Test
+        @DisplayName("Case a later node of the batch is a duplicate, then leave neither the earlier nodes nor the claim behind")
+        void testInsertNodesCasePartialInsert() {
+            MongoServer server = new MongoServer(new MemoryBackend());
+            MongoClient client = MongoClients.create("mongodb://localhost:" + server.bind().getPort());
+            try {
+                MongoTemplate mongoTemplate = new MongoTemplate(client, "mind-map");
+                mongoTemplate.indexOps(NodeDocument.class).ensureIndex(new Index().on("mapId", Sort.Direction.ASC).on("path", Sort.Direction.ASC).unique());
+                MongoRepositoryFactory repositories = new MongoRepositoryFactory(mongoTemplate);
+                NormalizedMapStorage storage = new NormalizedMapStorage(repositories.getRepository(MapRepository.class, RepositoryComposition.RepositoryFragments.just(new MapRepositoryImpl(mongoTemplate))),
+                        repositories.getRepository(NodeRepository.class), mongoTemplate, Duration.ofSeconds(30));
+                storage.createMap("my-map");
+                assertTrue(storage.insertNodes("my-map", Collections.singletonList(node("", "u", "id-1")), storage.findVersion("my-map")));
+                assertTrue(storage.insertNodes("my-map", Collections.singletonList(node("u", "b", "id-2")), storage.findVersion("my-map")));
+                long version = storage.findVersion("my-map");
+
+                assertFalse(storage.insertNodes("my-map", Arrays.asList(node("u", "a", "id-3"), node("u", "b", "id-4"), node("u", "c", "id-5")), version));
+
+                Map map = storage.findMap("my-map");
+                assertEquals(version, map.getVersion());
+                assertEquals(Arrays.asList("u", "u/b"), map.getNodes().stream().map(Node::getPath).collect(Collectors.toList()));
+                assertTrue(mongoTemplate.findById(map.getId(), Map.class).getPendingWrites().isEmpty());
+                assertTrue(storage.insertNodes("my-map", Collections.singletonList(node("u", "a", "id-3")), version));
+                assertEquals(version + 1, storage.findVersion("my-map"));
+            } finally {
+                client.close();
+                server.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("Case the map moved past the expected version, then insert nothing and return false")
+        void testInsertNodesCaseStaleVersion() {
+            when(mapRepository.findIdByName("my-map")).thenReturn(map(0));
+
+            assertFalse(storage.insertNodes("my-map", Collections.singletonList(node("", "u", "id-6")), 3));
+            ArgumentCaptor<Query> claim = ArgumentCaptor.forClass(Query.class);
+            verify(mongoTemplate).findAndModify(claim.capture(), any(Update.class), any(FindAndModifyOptions.class), eq(Map.class));
+            assertEquals(Document.parse("{ '_id': 'map-id', 'version': 3 }").toJson(), claim.getValue().getQueryObject().toJson());
+            verify(nodeRepository, never()).insert(anyList());
+            verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), any(String.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a findVersion CMD")
+    class FindVersion {
+        @Test
+        @DisplayName("Case writes are still inserting their nodes, then report the version before the oldest one")
+        void testFindVersionCasePendingWrite() {
+            Map map = map(0);
+            map.setVersion(5);
+            map.setPendingWrites(pendingWrites(4, 60_000, 5, 60_000));
+            when(mapRepository.findVersionByName("my-map")).thenReturn(map);
+
+            assertEquals(3, storage.findVersion("my-map"));
+        }
+
+        @Test
+        @DisplayName("Case a write was claimed by an instance that died, then ignore it once its lease expired")
+        void testFindVersionCaseExpiredWrite() {
+            Map map = map(0);
+            map.setVersion(5);
+            map.setPendingWrites(pendingWrites(4, -1, 5, 60_000));
+            when(mapRepository.findVersionByName("my-map")).thenReturn(map);
+
+            assertEquals(4, storage.findVersion("my-map"));
+        }
+    }
+
+    private java.util.Map<String, Date> pendingWrites(long version, long leaseMillis, long otherVersion, long otherLeaseMillis) {
+        java.util.Map<String, Date> pendingWrites = new HashMap<>();
+        pendingWrites.put(Long.toString(version), new Date(System.currentTimeMillis() + leaseMillis));
+        pendingWrites.put(Long.toString(otherVersion), new Date(System.currentTimeMillis() + otherLeaseMillis));
+        return pendingWrites;
+    }
+
+    private Map map(long nodeSeq) {
+        Map map = new Map();
+        map.setId("map-id");
+        map.setName("my-map");
+        map.setNodeSeq(nodeSeq);
+        return map;
+    }
+
+    private Node node(String parentPath, String name, String id) {
+        return Node.builder()
+                .parentPath(parentPath)
+                .name(name)
+                .id(id)
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.mind.map.api.storage;
+
+import com.mind.map.api.domain.Map;
+import com.mind.map.api.domain.NodeDocument;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NormalizedStorageMigrationTest {
+    private final MongoServer server = new MongoServer(new MemoryBackend());
+    private final MongoClient client = MongoClients.create("mongodb://localhost:" + server.bind().getPort());
+    private final MongoTemplate mongoTemplate = new MongoTemplate(client, "mind-map");
+    private final NormalizedStorageMigration migration = new NormalizedStorageMigration(mongoTemplate);
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Nested
+    @DisplayName("Given a migrate CMD")
+    class Migrate {
+        @Test
+        @DisplayName("Case the map was stored without a version, then move its nodes and clear the embedded ones")
+        void testMigrateCaseMapWithoutVersion() {
+            mongoTemplate.getCollection("mind_map").insertOne(new Document("_id", "map-id").append("name", "my-map")
+                    .append("nodes", Arrays.asList(node("", "i"), node("i", "name1"))));
+
+            migration.run(null);
+
+            Map map = mongoTemplate.findById("map-id", Map.class);
+            assertTrue(map.getNodes().isEmpty());
+            assertEquals(2, map.getNodeSeq());
+            List<NodeDocument> documents = mongoTemplate.find(Query.query(Criteria.where("mapId").is("map-id")), NodeDocument.class);
+            assertEquals(2, documents.size());
+            assertEquals(2, documents.stream().filter(document -> document.getPath().equals("i/name1")).findFirst().get().getDepth());
+        }
+
+        @Test
+        @DisplayName("Case node documents were stored without a depth, then store it")
+        void testMigrateCaseNodesWithoutDepth() {
+            mongoTemplate.getCollection("mind_map_node").insertOne(new Document("_id", "name1-id").append("mapId", "map-id")
+                    .append("parentPath", "i").append("name", "name1").append("path", "i/name1").append("seq", 1L));
+
+            migration.run(null);
+
+            assertEquals(2, mongoTemplate.findById("name1-id", NodeDocument.class).getDepth());
+        }
+    }
+
+    private static Document node(String parentPath, String name) {
+        return new Document("id", name + "-id").append("parentPath", parentPath).append("name", name);
+    }
+}